@@ -0,0 +1,128 @@
+package com.jetcab.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel for large numbers of short delayed tasks.
+ * <p>
+ * Scheduling is an O(1) lock-free enqueue; a single worker thread moves new tasks into their buckets
+ * and runs the expired ones once per tick. Tasks fire with up to one tick of delay and run on the worker thread,
+ * so they must be short, typically handing the real work to an executor.
+ */
+@Slf4j
+public class HashedTimingWheel {
+
+    private final long tickNanos;
+    private final Queue<Task>[] buckets;
+    private final int mask;
+    private final Queue<Task> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int bucketCount = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = unit.toNanos(tick);
+        this.buckets = new Queue[Math.max(bucketCount, 1)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = buckets.length - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel is stopped");
+        }
+        pending.add(new Task(task, System.nanoTime() - startNanos + unit.toNanos(delay)));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Number of scheduled tasks that have not fired yet.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (running) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            transferPending(tick);
+            expire(buckets[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void transferPending(long currentTick) {
+        Task task;
+        while ((task = pending.poll()) != null) {
+            long targetTick = Math.max(task.deadline / tickNanos, currentTick);
+            task.remainingRounds = (targetTick - currentTick) / buckets.length;
+            buckets[(int) (targetTick & mask)].add(task);
+        }
+    }
+
+    private void expire(Queue<Task> bucket, long deadline) {
+        Iterator<Task> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (task.remainingRounds > 0) {
+                task.remainingRounds--;
+                continue;
+            }
+            if (task.deadline > deadline) {
+                continue;
+            }
+            iterator.remove();
+            size.decrementAndGet();
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                log.error("Timed task failed", e);
+            }
+        }
+    }
+
+    private static final class Task {
+        private final Runnable runnable;
+        private final long deadline;
+        private long remainingRounds;
+
+        private Task(Runnable runnable, long deadline) {
+            this.runnable = runnable;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.jetcab.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Executor with a bounded FIFO queue per lane, served by a fixed set of worker threads in weighted round robin:
+ * a lane of weight {@code w} runs up to {@code w} tasks in a row before the next lane gets its turn.
+ * Empty lanes give up their turn, so the weights only matter while several lanes have work queued.
+ * Tasks submitted to a full lane are rejected and reported to the listener.
+ *
+ * @param <L> enum of the lanes; the declaration order is the order in which lanes take their turn
+ */
+@Slf4j
+public class WeightedLaneExecutor<L extends Enum<L>> {
+
+    private final L[] lanes;
+    private final Deque<Task<L>>[] queues;
+    private final int[] weights;
+    private final int laneCapacity;
+    private final LaneListener<L> listener;
+    private final Thread[] workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int queued;
+    private int current;
+    private int credits;
+    private boolean shutdown;
+
+    @SuppressWarnings("unchecked")
+    public WeightedLaneExecutor(String name, Class<L> laneType, ToIntFunction<L> weight, int laneCapacity, int concurrency,
+                                LaneListener<L> listener) {
+        if (laneCapacity <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("Lane capacity and concurrency must be positive");
+        }
+        this.lanes = laneType.getEnumConstants();
+        this.queues = new Deque[lanes.length];
+        this.weights = new int[lanes.length];
+        for (L lane : lanes) {
+            int laneWeight = weight.applyAsInt(lane);
+            if (laneWeight <= 0) {
+                throw new IllegalArgumentException("Weight of lane " + lane + " must be positive");
+            }
+            queues[lane.ordinal()] = new ArrayDeque<>();
+            weights[lane.ordinal()] = laneWeight;
+        }
+        this.credits = weights[0];
+        this.laneCapacity = laneCapacity;
+        this.listener = listener;
+        this.workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Thread(this::work, name + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues the task on the lane, unless the lane is full or the executor is shut down.
+     *
+     * @return whether the task was accepted
+     */
+    public boolean execute(L lane, Runnable task) {
+        int laneSize;
+        lock.lock();
+        try {
+            Deque<Task<L>> queue = queues[lane.ordinal()];
+            laneSize = queue.size();
+            if (!shutdown && laneSize < laneCapacity) {
+                queue.add(new Task<>(lane, task, System.nanoTime()));
+                queued++;
+                notEmpty.signal();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        listener.taskRejected(lane, laneSize);
+        return false;
+    }
+
+    /**
+     * Number of tasks waiting in the lane.
+     */
+    public int size(L lane) {
+        lock.lock();
+        try {
+            return queues[lane.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting tasks. Tasks already queued still run.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread worker : workers) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return !worker.isAlive();
+            }
+            worker.join(remainingMs);
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void work() {
+        while (true) {
+            Task<L> task;
+            lock.lock();
+            try {
+                while ((task = next()) == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    notEmpty.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            listener.taskStarted(task.lane, System.nanoTime() - task.submittedAt);
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                log.error("Task of lane {} failed", task.lane, e);
+            }
+        }
+    }
+
+    /**
+     * Takes the next task in weighted round robin order. Must be called with the lock held.
+     */
+    private Task<L> next() {
+        if (queued == 0) {
+            return null;
+        }
+        while (credits == 0 || queues[current].isEmpty()) {
+            current = (current + 1) % lanes.length;
+            credits = weights[current];
+        }
+        credits--;
+        queued--;
+        return queues[current].poll();
+    }
+
+    /**
+     * Callbacks for lane metrics. Both run outside the executor lock.
+     */
+    public interface LaneListener<L> {
+
+        default void taskStarted(L lane, long waitNanos) {
+        }
+
+        default void taskRejected(L lane, int laneSize) {
+        }
+    }
+
+    private static final class Task<L> {
+        private final L lane;
+        private final Runnable runnable;
+        private final long submittedAt;
+
+        private Task(L lane, Runnable runnable, long submittedAt) {
+            this.lane = lane;
+            this.runnable = runnable;
+            this.submittedAt = submittedAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.jetcab.common.exception;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.support.MessageSourceAccessor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -24,6 +25,8 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @RequiredArgsConstructor
 public class RestControllerExceptionHandler {
 
+    private static final String CONCURRENT_MODIFICATION_KEY = "exception.conflict.concurrent-modification";
+
     private final MessageSourceAccessor messageSource;
 
     @ExceptionHandler({NotFoundException.class})
@@ -44,6 +47,13 @@ public class RestControllerExceptionHandler {
         return createErrorResponse(CONFLICT, ex);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(CONFLICT)
+    public ResponseEntity<ErrorResponse> handleConcurrentModification(OptimisticLockingFailureException ex) {
+        String message = messageSource.getMessage(CONCURRENT_MODIFICATION_KEY, CONCURRENT_MODIFICATION_KEY);
+        return ResponseEntity.status(CONFLICT).body(new ErrorResponse(message));
+    }
+
     @ExceptionHandler(BindException.class)
     @ResponseStatus(BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handle(BindException ex) {
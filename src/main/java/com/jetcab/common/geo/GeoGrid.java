@@ -0,0 +1,71 @@
+package com.jetcab.common.geo;
+
+import static com.jetcab.common.geo.GeoUtils.KM_PER_DEGREE_LATITUDE;
+import static java.lang.Math.abs;
+import static java.lang.Math.ceil;
+import static java.lang.Math.cos;
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.Math.toRadians;
+
+/**
+ * Uniform grid over latitude/longitude with square cells of a fixed angular size.
+ * Cells are addressed by a packed {@code long} key: row in the upper 32 bits, column in the lower 32 bits.
+ */
+public class GeoGrid {
+
+    private final double cellSizeDegrees;
+    private final double cellSizeKm;
+
+    public GeoGrid(double cellSizeKm) {
+        if (cellSizeKm <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSizeKm = cellSizeKm;
+        this.cellSizeDegrees = cellSizeKm / KM_PER_DEGREE_LATITUDE;
+    }
+
+    public double getCellSizeKm() {
+        return cellSizeKm;
+    }
+
+    public int row(double latitude) {
+        return (int) floor((latitude + 90) / cellSizeDegrees);
+    }
+
+    public int column(double longitude) {
+        return (int) floor((longitude + 180) / cellSizeDegrees);
+    }
+
+    public long cellKey(double latitude, double longitude) {
+        return cellKey(row(latitude), column(longitude));
+    }
+
+    public static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    public static int rowOf(long cellKey) {
+        return (int) (cellKey >> 32);
+    }
+
+    public static int columnOf(long cellKey) {
+        return (int) cellKey;
+    }
+
+    /**
+     * Number of rows to scan on each side of a point to cover the given radius.
+     */
+    public int rowSpan(double radiusKm) {
+        return (int) ceil(radiusKm / cellSizeKm);
+    }
+
+    /**
+     * Number of columns to scan on each side of a point to cover the given radius.
+     * Meridians converge towards the poles, so a cell is narrower (in km) the further it is from the equator.
+     */
+    public int columnSpan(double latitude, double radiusKm) {
+        double cosLatitude = max(cos(toRadians(abs(latitude) + radiusKm / KM_PER_DEGREE_LATITUDE)), 0.01);
+        return (int) ceil(radiusKm / (cellSizeKm * cosLatitude));
+    }
+}
@@ -0,0 +1,107 @@
+package com.jetcab.configuration;
+
+import com.jetcab.common.concurrent.HashedTimingWheel;
+import com.jetcab.common.concurrent.WeightedLaneExecutor;
+import com.jetcab.service.notification.NotificationPriority;
+import com.jetcab.service.notification.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated, bounded executor for notification delivery, so that slow or retried sends never occupy
+ * the common fork-join pool. Deliveries are queued per {@link NotificationPriority} lane and served in weighted
+ * round robin, so revocations overtake a burst of new offers. When a lane is full, its deliveries are rejected
+ * rather than queued without bound. Per lane, rejections are counted in {@code jetcab.notification.rejected},
+ * the queue depth is exposed as {@code jetcab.notification.lane.queued} and the time deliveries waited
+ * as {@code jetcab.notification.lane.wait}, all tagged with {@code lane}.
+ * Failed deliveries wait for their retry on a timing wheel instead of sleeping on an executor thread.
+ */
+@Slf4j
+@Configuration
+public class NotificationExecutorConfiguration {
+
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+    public static final String NOTIFICATION_RETRY_WHEEL = "notificationRetryWheel";
+    public static final String WEBSOCKET_OUTBOUND_EXECUTOR = "websocketOutboundExecutor";
+
+    @Bean(name = NOTIFICATION_EXECUTOR, destroyMethod = "shutdown")
+    public WeightedLaneExecutor<NotificationPriority> notificationExecutor(NotificationProperties properties, MeterRegistry meterRegistry) {
+        NotificationProperties.Executor executorProperties = properties.getExecutor();
+        Map<NotificationPriority, Counter> rejected = new EnumMap<>(NotificationPriority.class);
+        Map<NotificationPriority, Timer> waits = new EnumMap<>(NotificationPriority.class);
+        for (NotificationPriority lane : NotificationPriority.values()) {
+            rejected.put(lane, Counter.builder("jetcab.notification.rejected")
+                    .description("Notification deliveries rejected because the lane queue was full")
+                    .tag("lane", laneTag(lane))
+                    .register(meterRegistry));
+            waits.put(lane, Timer.builder("jetcab.notification.lane.wait")
+                    .description("Time notification deliveries waited in their lane queue")
+                    .tag("lane", laneTag(lane))
+                    .register(meterRegistry));
+        }
+
+        WeightedLaneExecutor<NotificationPriority> executor = new WeightedLaneExecutor<>("notification-", NotificationPriority.class,
+                lane -> executorProperties.getWeights().getOrDefault(lane, 1),
+                executorProperties.getQueueCapacity(), executorProperties.getConcurrency(),
+                new WeightedLaneExecutor.LaneListener<>() {
+                    @Override
+                    public void taskStarted(NotificationPriority lane, long waitNanos) {
+                        waits.get(lane).record(waitNanos, TimeUnit.NANOSECONDS);
+                    }
+
+                    @Override
+                    public void taskRejected(NotificationPriority lane, int laneSize) {
+                        rejected.get(lane).increment();
+                        log.warn("Notification lane {} saturated with {} queued deliveries, dead-lettering delivery", lane, laneSize);
+                    }
+                });
+        for (NotificationPriority lane : NotificationPriority.values()) {
+            Gauge.builder("jetcab.notification.lane.queued", executor, e -> e.size(lane))
+                    .description("Notification deliveries waiting in the lane queue")
+                    .tag("lane", laneTag(lane))
+                    .register(meterRegistry);
+        }
+        return executor;
+    }
+
+    @Bean(name = NOTIFICATION_RETRY_WHEEL, destroyMethod = "stop")
+    public HashedTimingWheel notificationRetryWheel(NotificationProperties properties, MeterRegistry meterRegistry) {
+        NotificationProperties.Retry retryProperties = properties.getRetry();
+        HashedTimingWheel wheel = new HashedTimingWheel("notification-retry", retryProperties.getTickMs(), TimeUnit.MILLISECONDS,
+                retryProperties.getWheelSize());
+        meterRegistry.gauge("jetcab.notification.retry.pending", wheel, HashedTimingWheel::size);
+        return wheel;
+    }
+
+    /**
+     * Writes the queued frames of the WebSocket sessions. Each session has at most one drain task queued,
+     * so the queue is bounded by the number of sessions.
+     */
+    @Bean(name = WEBSOCKET_OUTBOUND_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolExecutor websocketOutboundExecutor(NotificationProperties properties, MeterRegistry meterRegistry) {
+        int concurrency = properties.getSessionQueue().getConcurrency();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("websocket-outbound-"));
+        executor.allowCoreThreadTimeOut(true);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "websocket-outbound");
+        return executor;
+    }
+
+    private static String laneTag(NotificationPriority lane) {
+        return lane.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,23 +1,85 @@
 package com.jetcab.configuration;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jetcab.service.notification.PayloadFormat;
+import com.jetcab.service.notification.outbound.OutboundSessionDecoratorFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
 
+    public static final String CBOR_MESSAGE_CONVERTER = "cborMessageConverter";
+
+    private final OutboundSessionDecoratorFactory outboundSessionDecoratorFactory;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    /**
+     * Registers {@code /ws} with the SockJS fallback for browsers and {@code /ws-binary} as a plain WebSocket
+     * endpoint for devices that want binary payloads, which SockJS cannot carry.
+     */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOrigins("*").withSockJS();
+        registry.addEndpoint("/ws-binary").setAllowedOrigins("*").addInterceptors(new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(PayloadFormat.BINARY_FRAMES_ATTRIBUTE, true);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        });
+    }
+
+    /**
+     * Queues outbound frames per session, so that a slow device does not hold up the broker for the rest of the fleet.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
+        registry.addDecoratorFactory(outboundSessionDecoratorFactory);
+    }
+
+    /**
+     * Converter for devices that negotiated {@link PayloadFormat#CBOR}. Null fields are left out
+     * and dates are written as numeric timestamps to keep the payloads small.
+     */
+    @Bean(CBOR_MESSAGE_CONVERTER)
+    public MessageConverter cborMessageConverter() {
+        ObjectMapper cborMapper = CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(PayloadFormat.CBOR.getMimeType());
+        converter.setObjectMapper(cborMapper);
+        return converter;
     }
 }
@@ -4,8 +4,6 @@ import com.jetcab.service.booking.BookingService;
 import com.jetcab.service.booking.dto.BookingDTO;
 import com.jetcab.service.booking.dto.BookingStatisticsDTO;
 import com.jetcab.service.booking.dto.ModifyBookingDTO;
-import com.jetcab.service.notification.NotificationService;
-import com.jetcab.service.taxi.TaxiService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -23,36 +21,31 @@ import java.time.ZonedDateTime;
 @RequiredArgsConstructor
 public class BookingController {
 
-    private final TaxiService taxiService;
     private final BookingService bookingService;
-    private final NotificationService notificationService;
+
+    @GetMapping("/api/v1/bookings/{bookingId}")
+    public BookingDTO getById(@PathVariable("bookingId") Long bookingId) {
+        return bookingService.getById(bookingId);
+    }
 
     @PostMapping("/api/v1/bookings")
     public BookingDTO createBooking(@RequestBody @Validated ModifyBookingDTO dto) {
-        BookingDTO booking = bookingService.createBooking(dto);
-        notificationService.publishBookingToAvailableTaxis(booking, taxiService.getAvailableTaxiIDs());
-        return booking;
+        return bookingService.createBooking(dto);
     }
 
     @PutMapping("/api/v1/bookings/{bookingId}")
     public BookingDTO updateBooking(@PathVariable("bookingId") Long bookingId, @RequestBody @Validated ModifyBookingDTO dto) {
-        BookingDTO booking = bookingService.updateBooking(bookingId, dto);
-        notificationService.publishBookingToAvailableTaxis(booking, taxiService.getAvailableTaxiIDs());
-        return booking;
+        return bookingService.updateBooking(bookingId, dto);
     }
 
     @DeleteMapping("/api/v1/bookings/{bookingId}")
     public BookingDTO cancelBooking(@PathVariable("bookingId") Long bookingId) {
-        BookingDTO booking = bookingService.cancelBooking(bookingId);
-        notificationService.publishBookingToAvailableTaxis(booking, taxiService.getAvailableTaxiIDs());
-        return booking;
+        return bookingService.cancelBooking(bookingId);
     }
 
     @PutMapping("/api/v1/bookings/{bookingId}/take-booking/{taxiId}")
     public BookingDTO takeBooking(@PathVariable Long bookingId, @PathVariable Long taxiId) {
-        BookingDTO booking = bookingService.takeBooking(bookingId, taxiId);
-        notificationService.publishBookingToAvailableTaxis(booking, taxiService.getAvailableTaxiIDs());
-        return booking;
+        return bookingService.takeBooking(bookingId, taxiId);
     }
 
     @PutMapping("/api/v1/bookings/{bookingId}/complete-booking")
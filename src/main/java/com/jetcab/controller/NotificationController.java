@@ -0,0 +1,21 @@
+package com.jetcab.controller;
+
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.dto.DeadLetterDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    @GetMapping("/api/v1/notifications/dead-letters")
+    public List<DeadLetterDTO> getDeadLetters() {
+        return notificationService.getDeadLetters();
+    }
+}
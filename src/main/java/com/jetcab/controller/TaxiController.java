@@ -2,12 +2,22 @@ package com.jetcab.controller;
 
 import com.jetcab.common.PageableList;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
+import com.jetcab.service.region.RegionService;
+import com.jetcab.service.region.dto.RegionAssignmentDTO;
 import com.jetcab.service.taxi.TaxiService;
 import com.jetcab.service.taxi.dto.ModifyTaxiDTO;
+import com.jetcab.service.taxi.dto.NearbyTaxiDTO;
 import com.jetcab.service.taxi.dto.TaxiDTO;
 import com.jetcab.service.taxi.model.TaxiStatus;
+import com.jetcab.service.trail.TrailService;
+import com.jetcab.service.trail.dto.TrailPointDTO;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,17 +28,30 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 public class TaxiController {
 
     private final TaxiService taxiService;
+    private final TrailService trailService;
+    private final RegionService regionService;
 
     @GetMapping("/api/v1/taxis")
     public PageableList<TaxiDTO> getAllTaxis(Pageable pageable) {
         return taxiService.getAllTaxis(pageable);
     }
 
+    @GetMapping("/api/v1/taxis/nearest")
+    public List<NearbyTaxiDTO> findNearest(@RequestParam(name = "lat") @DecimalMin("-90") @DecimalMax("90") double latitude,
+                                           @RequestParam(name = "lon") @DecimalMin("-180") @DecimalMax("180") double longitude,
+                                           @RequestParam(name = "k", defaultValue = "5") @Min(1) @Max(100) int k,
+                                           @RequestParam(name = "maxKm", defaultValue = "10") @DecimalMin("0") @DecimalMax("100") double maxKm) {
+        return taxiService.findNearestAvailable(latitude, longitude, k, maxKm);
+    }
+
     @GetMapping("/api/v1/taxis/{taxiId}")
     public TaxiDTO getById(@PathVariable("taxiId") Long taxiId) {
         return taxiService.getById(taxiId);
@@ -49,6 +72,26 @@ public class TaxiController {
         return taxiService.updateLocation(taxiId, location);
     }
 
+    @GetMapping("/api/v1/taxis/{taxiId}/trail")
+    public List<TrailPointDTO> getTrail(@PathVariable("taxiId") Long taxiId,
+                                        @RequestParam(name = "from") ZonedDateTime from,
+                                        @RequestParam(name = "to") ZonedDateTime to) {
+        return trailService.getTrail(taxiId, from, to);
+    }
+
+    @GetMapping(value = "/api/v1/taxis/{taxiId}/trail/encoded", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] getEncodedTrail(@PathVariable("taxiId") Long taxiId,
+                                  @RequestParam(name = "from") ZonedDateTime from,
+                                  @RequestParam(name = "to") ZonedDateTime to,
+                                  @RequestParam(name = "toleranceM", required = false) @DecimalMin("0") Double toleranceMeters) {
+        return trailService.getEncodedTrail(taxiId, from, to, toleranceMeters);
+    }
+
+    @GetMapping("/api/v1/taxis/{taxiId}/regions")
+    public RegionAssignmentDTO getRegionAssignment(@PathVariable("taxiId") Long taxiId) {
+        return regionService.getAssignment(taxiId);
+    }
+
     @DeleteMapping("/api/v1/taxis/{taxiId}")
     public void deleteTaxi(@PathVariable("taxiId") Long taxiId) {
         taxiService.deleteTaxi(taxiId);
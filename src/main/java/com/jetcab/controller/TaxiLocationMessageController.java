@@ -0,0 +1,22 @@
+package com.jetcab.controller;
+
+import com.jetcab.service.location.dto.ModifyLocationDTO;
+import com.jetcab.service.taxi.ingest.TaxiLocationIngestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
+
+@Controller
+@RequiredArgsConstructor
+public class TaxiLocationMessageController {
+
+    private final TaxiLocationIngestService taxiLocationIngestService;
+
+    @MessageMapping("/taxis/{taxiId}/location")
+    public void updateLocation(@DestinationVariable("taxiId") Long taxiId, @Payload @Validated ModifyLocationDTO location) {
+        taxiLocationIngestService.record(taxiId, location.getLatitude(), location.getLongitude());
+    }
+}
@@ -2,17 +2,20 @@ package com.jetcab.persistence;
 
 import com.jetcab.service.booking.model.Booking;
 import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.taxi.model.Taxi;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.jetcab.service.booking.exception.BookingNotFoundException;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
@@ -24,7 +27,31 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query(value = "select b.status from Booking b where b.bookedAt between :from and :to")
     List<BookingStatus> findAllBookingStatusBetween(@Param("from") ZonedDateTime from, @Param("to") ZonedDateTime to);
 
+    /**
+     * Moves the booking to the given status only if its current status is one of {@code from}.
+     *
+     * @return the number of updated rows, zero when the booking does not exist or has another status
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 WHERE b.id = :bookingId AND b.status IN :from")
+    int updateStatus(@Param("bookingId") Long bookingId, @Param("from") Collection<BookingStatus> from,
+                     @Param("status") BookingStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = com.jetcab.service.booking.model.BookingStatus.CONFIRMED, b.taxi = :taxi, "
+            + "b.confirmedAt = :confirmedAt, b.version = b.version + 1 "
+            + "WHERE b.id = :bookingId AND b.status = com.jetcab.service.booking.model.BookingStatus.PENDING")
+    int confirm(@Param("bookingId") Long bookingId, @Param("taxi") Taxi taxi, @Param("confirmedAt") ZonedDateTime confirmedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = com.jetcab.service.booking.model.BookingStatus.COMPLETED, "
+            + "b.completedAt = :completedAt, b.version = b.version + 1 "
+            + "WHERE b.id = :bookingId AND b.status = com.jetcab.service.booking.model.BookingStatus.CONFIRMED")
+    int complete(@Param("bookingId") Long bookingId, @Param("completedAt") ZonedDateTime completedAt);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT b FROM Booking b WHERE b.id = :bookingId")
-    Optional<Booking> findBookingForUpdate(@Param("bookingId") Long bookingId);
+    @Query("SELECT b FROM Booking b WHERE b.id IN :bookingIds ORDER BY b.id")
+    List<Booking> findAllBookingsForUpdate(@Param("bookingIds") Collection<Long> bookingIds);
+
+    List<Booking> findAllByStatusOrderByBookedAt(BookingStatus status, Pageable pageable);
 }
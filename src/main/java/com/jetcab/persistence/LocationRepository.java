@@ -2,12 +2,19 @@ package com.jetcab.persistence;
 
 import com.jetcab.service.location.model.Location;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
 
-    List<Location> findAllByLatitudeAndLongitude(Double latitude, Double longitude);
+    Optional<Location> findByCellKey(Long cellKey);
+
+    /**
+     * Cell size the stored cell keys were computed with, recorded by the migration that introduced them.
+     */
+    @Query(value = "SELECT cell_size_km FROM location_grid", nativeQuery = true)
+    Optional<Double> findCellSizeKm();
 }
@@ -0,0 +1,33 @@
+package com.jetcab.persistence;
+
+import com.jetcab.service.notification.outbox.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Claims up to {@code limit} of the oldest rows that are unclaimed or whose claim has expired.
+     * The claim is a single conditional update, so concurrent relays never claim the same row.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE outbox SET claimed_by = :claimedBy, claimed_at = :now
+            WHERE id IN (SELECT id FROM outbox
+                         WHERE claimed_at IS NULL OR claimed_at < :expiredBefore
+                         ORDER BY id
+                         FETCH FIRST :limit ROWS ONLY)
+              AND (claimed_at IS NULL OR claimed_at < :expiredBefore)
+            """, nativeQuery = true)
+    int claim(@Param("claimedBy") String claimedBy, @Param("now") ZonedDateTime now,
+              @Param("expiredBefore") ZonedDateTime expiredBefore, @Param("limit") int limit);
+
+    List<OutboxMessage> findAllByClaimedByOrderById(String claimedBy);
+}
@@ -0,0 +1,48 @@
+package com.jetcab.persistence;
+
+import com.jetcab.service.taxi.ingest.TaxiPosition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Plain JDBC access for the taxi position write path, which is too hot to go through the entity manager.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaxiPositionJdbcRepository {
+
+    private static final String UPDATE_TAXI_POSITION =
+            "UPDATE taxis SET latitude = ?, longitude = ?, location_updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes the given positions onto the taxi rows in a single JDBC batch.
+     */
+    @Transactional
+    public void updatePositions(List<TaxiPosition> positions) {
+        jdbcTemplate.batchUpdate(UPDATE_TAXI_POSITION, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TaxiPosition position = positions.get(i);
+                ps.setDouble(1, position.getLatitude());
+                ps.setDouble(2, position.getLongitude());
+                ps.setTimestamp(3, Timestamp.from(position.getRecordedAt()));
+                ps.setLong(4, position.getTaxiId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return positions.size();
+            }
+        });
+    }
+}
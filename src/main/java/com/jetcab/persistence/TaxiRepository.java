@@ -3,9 +3,15 @@ package com.jetcab.persistence;
 import com.jetcab.service.taxi.exception.TaxiNotFoundException;
 import com.jetcab.service.taxi.model.Taxi;
 import com.jetcab.service.taxi.model.TaxiStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,4 +22,19 @@ public interface TaxiRepository extends JpaRepository<Taxi, Long> {
     }
 
     List<Long> findAllByStatus(TaxiStatus status);
+
+    /**
+     * Moves the taxi to the given status only if it currently has the expected one and is not deleted.
+     *
+     * @return the number of updated rows, zero when the taxi does not exist, is deleted or has another status
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Taxi t SET t.status = :status, t.version = t.version + 1 WHERE t.id = :id AND t.status = :expected AND t.deleted = false")
+    int updateStatus(@Param("id") Long id, @Param("expected") TaxiStatus expected, @Param("status") TaxiStatus status);
+
+    List<Taxi> findAllByStatusAndDeletedFalse(TaxiStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Taxi t WHERE t.id IN :ids ORDER BY t.id")
+    List<Taxi> findAllForUpdate(@Param("ids") Collection<Long> ids);
 }
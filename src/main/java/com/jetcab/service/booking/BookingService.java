@@ -6,9 +6,13 @@ import com.jetcab.service.booking.dto.ModifyBookingDTO;
 import com.jetcab.service.booking.model.BookingStatus;
 
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
 
 public interface BookingService {
 
+    BookingDTO getById(Long bookingId);
+
     BookingDTO createBooking(ModifyBookingDTO dto);
 
     BookingDTO updateBooking(Long bookingId, ModifyBookingDTO dto);
@@ -22,4 +26,15 @@ public interface BookingService {
     BookingDTO takeBooking(Long bookingId, Long taxiId);
 
     BookingDTO completeBooking(Long bookingId);
+
+    List<BookingDTO> getPendingBookings(int limit);
+
+    /**
+     * Confirms several bookings at once, each with the given taxi, in a single transaction.
+     * Pairs whose booking is no longer pending or whose taxi is no longer available are skipped.
+     *
+     * @param taxiIdsByBookingId taxi ID to assign, keyed by booking ID
+     * @return bookings that were confirmed
+     */
+    List<BookingDTO> confirmAssignments(Map<Long, Long> taxiIdsByBookingId);
 }
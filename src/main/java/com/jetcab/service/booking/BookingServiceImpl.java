@@ -1,10 +1,13 @@
 package com.jetcab.service.booking;
 
 import com.jetcab.persistence.BookingRepository;
+import com.jetcab.service.booking.claim.BookingClaimArbiter;
 import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
 import com.jetcab.service.booking.dto.BookingStatisticsDTO;
 import com.jetcab.service.booking.dto.ModifyBookingDTO;
-import com.jetcab.service.booking.exception.BookingNotFoundException;
+import com.jetcab.service.booking.event.BookingChangedEvent;
+import com.jetcab.service.booking.exception.BookingClaimedException;
 import com.jetcab.service.booking.exception.BookingStatusChangeException;
 import com.jetcab.service.booking.exception.CancelBookingException;
 import com.jetcab.service.booking.exception.InvalidBookingStateException;
@@ -12,18 +15,33 @@ import com.jetcab.service.booking.exception.UpdateBookingException;
 import com.jetcab.service.booking.mapper.BookingMapper;
 import com.jetcab.service.booking.model.Booking;
 import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.eta.EtaService;
 import com.jetcab.service.location.LocationService;
+import com.jetcab.service.location.dto.LocationDTO;
 import com.jetcab.service.location.model.Location;
 import com.jetcab.service.passenger.PassengerService;
 import com.jetcab.service.taxi.TaxiService;
+import com.jetcab.service.taxi.exception.TaxiNotAvailableException;
 import com.jetcab.service.taxi.model.Taxi;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static com.jetcab.service.booking.model.BookingStatus.CANCELLED;
 import static com.jetcab.service.booking.model.BookingStatus.COMPLETED;
@@ -31,19 +49,32 @@ import static com.jetcab.service.booking.model.BookingStatus.CONFIRMED;
 import static com.jetcab.service.booking.model.BookingStatus.PENDING;
 import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
 import static com.jetcab.service.taxi.model.TaxiStatus.BOOKED;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.counting;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toMap;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
     private final BookingMapper bookingMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     private final LocationService locationService;
     private final PassengerService passengerService;
     private final TaxiService taxiService;
+    private final EtaService etaService;
+    private final BookingClaimArbiter bookingClaimArbiter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingDTO getById(Long bookingId) {
+        return bookingMapper.map(bookingRepository.findBookingById(bookingId));
+    }
 
     @Override
     @Transactional
@@ -56,7 +87,7 @@ public class BookingServiceImpl implements BookingService {
         booking.setBookedAt(ZonedDateTime.now());
 
         Booking saved = bookingRepository.saveAndFlush(booking);
-        return bookingMapper.map(saved);
+        return publishChange(bookingMapper.map(saved));
     }
 
     @Override
@@ -65,6 +96,7 @@ public class BookingServiceImpl implements BookingService {
         Booking booking = bookingRepository.findBookingById(bookingId);
 
         if (booking.getStatus() == PENDING || booking.getStatus() == CONFIRMED) {
+            BookingState previous = BookingState.of(booking);
             Location pickupLocation = locationService.findOrCreate(dto.getPickupLocation());
 
             if (booking.getStatus() == CONFIRMED && !booking.getPickupLocation().getId().equals(pickupLocation.getId())) {
@@ -75,7 +107,7 @@ public class BookingServiceImpl implements BookingService {
             booking.setDropOffLocation(locationService.findOrCreate(dto.getDropOffLocation()));
 
             Booking updated = bookingRepository.saveAndFlush(booking);
-            return bookingMapper.map(updated);
+            return publishChange(previous, bookingMapper.map(updated));
         }
 
         throw new UpdateBookingException();
@@ -84,29 +116,18 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional
     public BookingDTO updateBookingStatus(Long bookingId, BookingStatus status) {
-        Booking booking = bookingRepository.findBookingById(bookingId);
-
-        if (statusCannotBeChanged(booking.getStatus(), status)) {
-            throw new BookingStatusChangeException();
-        }
-
-        booking.setStatus(status);
-        Booking updated = bookingRepository.saveAndFlush(booking);
-        return bookingMapper.map(updated);
+        int updated = bookingRepository.updateStatus(bookingId, statusesChangeableTo(status), status);
+        return bookingMapper.map(transitioned(bookingId, updated, BookingStatusChangeException::new));
     }
 
     @Override
     @Transactional
     public BookingDTO cancelBooking(Long bookingId) {
-        Booking booking = bookingRepository.findBookingById(bookingId);
+        int updated = bookingRepository.updateStatus(bookingId, statusesChangeableTo(CANCELLED), CANCELLED);
+        Booking canceled = transitioned(bookingId, updated, CancelBookingException::new);
 
-        if (statusCannotBeChanged(booking.getStatus(), CANCELLED)) {
-            throw new CancelBookingException();
-        }
-
-        booking.setStatus(CANCELLED);
-        Booking canceled = bookingRepository.saveAndFlush(booking);
-        return bookingMapper.map(canceled);
+        BookingState previous = BookingState.beforeTransition(canceled, null, canceled.getTaxi());
+        return publishChange(previous, bookingMapper.map(canceled));
     }
 
     @Override
@@ -123,47 +144,182 @@ public class BookingServiceImpl implements BookingService {
                 .build();
     }
 
+    /**
+     * Lets only the first of concurrent takes of a booking on this node through to the database, rejecting the others
+     * before they open a transaction. The conditional update still decides between nodes. The claim is released once
+     * the transaction has completed, whatever its outcome.
+     */
     @Override
-    @Transactional
     public BookingDTO takeBooking(Long bookingId, Long taxiId) {
-        Booking booking = bookingRepository.findBookingForUpdate(bookingId)
-                .orElseThrow(BookingNotFoundException::new);
+        if (!bookingClaimArbiter.tryClaim(bookingId, taxiId)) {
+            throw new BookingClaimedException();
+        }
+        try {
+            return transactionTemplate.execute(status -> confirmTakenBooking(bookingId, taxiId));
+        } finally {
+            bookingClaimArbiter.release(bookingId, taxiId);
+        }
+    }
 
-        if (booking.getStatus() != PENDING) {
-            throw new InvalidBookingStateException("exception.conflict.booking-not-available");
+    /**
+     * Moves the taxi from AVAILABLE to BOOKED and then the booking from PENDING to CONFIRMED, each with a conditional
+     * update, so that neither a taxi nor a booking can be taken twice. If the booking is no longer pending, the taxi
+     * change is rolled back with the transaction. Taxi rows are always locked before booking rows.
+     */
+    private BookingDTO confirmTakenBooking(Long bookingId, Long taxiId) {
+        Taxi taxi = taxiService.changeStatus(taxiId, AVAILABLE, BOOKED).orElse(null);
+        if (taxi == null) {
+            taxiService.findById(taxiId);
+            throw new TaxiNotAvailableException();
         }
 
-        Taxi taxi = taxiService.findById(taxiId);
-        taxi.setStatus(BOOKED);
-        taxiService.update(taxi);
+        int updated = bookingRepository.confirm(bookingId, taxi, ZonedDateTime.now());
+        Booking booking = transitioned(bookingId, updated,
+                () -> new InvalidBookingStateException("exception.conflict.booking-not-available"));
+        booking.setPickupEtaSeconds(estimatePickupSeconds(booking, taxi));
 
-        booking.setStatus(CONFIRMED);
-        booking.setTaxi(taxi);
-        Booking updated = bookingRepository.saveAndFlush(booking);
-
-        return bookingMapper.map(updated);
+        return publishChange(BookingState.beforeTransition(booking, PENDING, null), bookingMapper.map(booking));
     }
 
     @Override
     @Transactional
     public BookingDTO completeBooking(Long bookingId) {
         Booking booking = bookingRepository.findBookingById(bookingId);
-
-        if (booking.getStatus() != BookingStatus.CONFIRMED) {
+        if (booking.getStatus() != CONFIRMED) {
             throw new InvalidBookingStateException("exception.conflict.booking-cannot-be-completed");
         }
 
-        booking.setStatus(COMPLETED);
-        Booking updated = bookingRepository.saveAndFlush(booking);
-
         Taxi taxi = booking.getTaxi();
+        if (taxi != null && taxiService.changeStatus(taxi.getId(), BOOKED, AVAILABLE).isEmpty()) {
+            log.warn("Taxi {} of booking {} was not BOOKED when the booking completed, its status is left unchanged",
+                    taxi.getId(), bookingId);
+        }
+        int updated = bookingRepository.complete(bookingId, ZonedDateTime.now());
+        Booking completed = transitioned(bookingId, updated,
+                () -> new InvalidBookingStateException("exception.conflict.booking-cannot-be-completed"));
+        recordTrip(completed);
+
+        return bookingMapper.map(completed);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDTO> getPendingBookings(int limit) {
+        return bookingMapper.map(bookingRepository.findAllByStatusOrderByBookedAt(PENDING, PageRequest.ofSize(limit)));
+    }
+
+    @Override
+    @Transactional
+    public List<BookingDTO> confirmAssignments(Map<Long, Long> taxiIdsByBookingId) {
+        if (taxiIdsByBookingId.isEmpty()) {
+            return List.of();
+        }
 
-        if (taxi != null) {
-            taxi.setStatus(AVAILABLE);
-            taxiService.update(taxi);
+        Map<Long, Taxi> taxis = taxiService.findAllByIdForUpdate(taxiIdsByBookingId.values()).stream()
+                .collect(toMap(Taxi::getId, identity()));
+        List<Booking> pending = new ArrayList<>();
+        for (Booking booking : bookingRepository.findAllBookingsForUpdate(taxiIdsByBookingId.keySet())) {
+            Taxi taxi = taxis.get(taxiIdsByBookingId.get(booking.getId()));
+            if (booking.getStatus() == PENDING && taxi != null && taxi.getStatus() == AVAILABLE && !taxi.isDeleted()) {
+                pending.add(booking);
+            }
         }
 
-        return bookingMapper.map(updated);
+        List<Booking> confirmed = new ArrayList<>();
+        Map<Long, BookingState> previousStates = new HashMap<>();
+        for (Booking booking : pending) {
+            Long taxiId = taxiIdsByBookingId.get(booking.getId());
+            taxiService.changeStatus(taxiId, AVAILABLE, BOOKED).ifPresent(taxi -> {
+                previousStates.put(booking.getId(), BookingState.of(booking));
+                confirm(booking, taxi);
+                confirmed.add(booking);
+            });
+        }
+
+        List<BookingDTO> confirmedBookings = bookingMapper.map(bookingRepository.saveAllAndFlush(confirmed));
+        confirmedBookings.forEach(booking -> publishChange(previousStates.get(booking.getId()), booking));
+        return confirmedBookings;
+    }
+
+    private BookingDTO publishChange(BookingDTO booking) {
+        eventPublisher.publishEvent(new BookingChangedEvent(booking));
+        return booking;
+    }
+
+    private BookingDTO publishChange(BookingState previous, BookingDTO booking) {
+        if (previous == null) {
+            return publishChange(booking);
+        }
+        eventPublisher.publishEvent(new BookingChangedEvent(booking, toDelta(previous, booking)));
+        return booking;
+    }
+
+    private static BookingDeltaDTO toDelta(BookingState previous, BookingDTO booking) {
+        Long taxiId = booking.getTaxi() != null ? booking.getTaxi().getId() : null;
+        LocationDTO pickup = booking.getPickupLocation();
+        LocationDTO dropOff = booking.getDropOffLocation();
+        return BookingDeltaDTO.builder()
+                .bookingId(booking.getId())
+                .version(booking.getVersion())
+                .status(previous.getStatus() != booking.getStatus() ? booking.getStatus() : null)
+                .taxiId(!Objects.equals(previous.getTaxiId(), taxiId) ? taxiId : null)
+                .pickupLocation(pickup != null && !Objects.equals(previous.getPickupLocationId(), pickup.getId()) ? pickup : null)
+                .dropOffLocation(dropOff != null && !Objects.equals(previous.getDropOffLocationId(), dropOff.getId()) ? dropOff : null)
+                .build();
+    }
+
+    private void confirm(Booking booking, Taxi taxi) {
+        booking.setStatus(CONFIRMED);
+        booking.setTaxi(taxi);
+        booking.setConfirmedAt(ZonedDateTime.now());
+        booking.setPickupEtaSeconds(estimatePickupSeconds(booking, taxi));
+    }
+
+    private Integer estimatePickupSeconds(Booking booking, Taxi taxi) {
+        Location pickup = booking.getPickupLocation();
+        if (taxi.getLatitude() == null || taxi.getLongitude() == null || pickup == null) {
+            return null;
+        }
+        return etaService.estimateSeconds(taxi.getLatitude(), taxi.getLongitude(), pickup.getLatitude(), pickup.getLongitude());
+    }
+
+    /**
+     * Loads the booking after a conditional update. When no row was updated, tells a missing booking apart
+     * from one whose status did not allow the transition.
+     */
+    private Booking transitioned(Long bookingId, int updatedRows, Supplier<? extends RuntimeException> rejection) {
+        Booking booking = bookingRepository.findBookingById(bookingId);
+        if (updatedRows == 0) {
+            throw rejection.get();
+        }
+        return booking;
+    }
+
+    /**
+     * Statuses from which a booking may move to the given status, for the WHERE clause of conditional updates.
+     */
+    private Set<BookingStatus> statusesChangeableTo(BookingStatus status) {
+        Set<BookingStatus> statuses = EnumSet.noneOf(BookingStatus.class);
+        for (BookingStatus current : BookingStatus.values()) {
+            if (!statusCannotBeChanged(current, status)) {
+                statuses.add(current);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Learns from the pickup-to-drop-off leg of the trip: the time from confirmation to completion minus
+     * the pickup estimate made at confirmation.
+     */
+    private void recordTrip(Booking booking) {
+        if (booking.getConfirmedAt() == null || booking.getPickupEtaSeconds() == null) {
+            return;
+        }
+        long tripSeconds = Duration.between(booking.getConfirmedAt(), booking.getCompletedAt()).toSeconds() - booking.getPickupEtaSeconds();
+        Location pickup = booking.getPickupLocation();
+        Location dropOff = booking.getDropOffLocation();
+        etaService.recordTrip(pickup.getLatitude(), pickup.getLongitude(), dropOff.getLatitude(), dropOff.getLongitude(), tripSeconds);
     }
 
     public boolean statusCannotBeChanged(BookingStatus current, BookingStatus newStatus) {
@@ -173,4 +329,30 @@ public class BookingServiceImpl implements BookingService {
             default -> true; // COMPLETED and CANCELLED statuses cannot transition
         };
     }
+
+    /**
+     * Fields of a booking that deltas carry, as they were before a change.
+     */
+    @Value
+    private static class BookingState {
+        BookingStatus status;
+        Long taxiId;
+        Long pickupLocationId;
+        Long dropOffLocationId;
+
+        private static BookingState of(Booking booking) {
+            return beforeTransition(booking, booking.getStatus(), booking.getTaxi());
+        }
+
+        /**
+         * State of the booking before a conditional update that changed at most its status and taxi.
+         * A {@code null} status stands for any status other than the current one.
+         */
+        private static BookingState beforeTransition(Booking booking, BookingStatus status, Taxi taxi) {
+            return new BookingState(status,
+                    taxi != null ? taxi.getId() : null,
+                    booking.getPickupLocation() != null ? booking.getPickupLocation().getId() : null,
+                    booking.getDropOffLocation() != null ? booking.getDropOffLocation().getId() : null);
+        }
+    }
 }
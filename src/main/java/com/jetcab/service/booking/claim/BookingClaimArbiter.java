@@ -0,0 +1,35 @@
+package com.jetcab.service.booking.claim;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory arbitration of concurrent attempts to take the same booking. Only the first taxi to claim a booking
+ * goes on to the database; the others are turned away without opening a transaction or waiting for a row lock.
+ * Claims are local to this node, so the database lock still decides between taxis claiming through different nodes.
+ */
+@Component
+public class BookingClaimArbiter {
+
+    private final Map<Long, Long> claimants = new ConcurrentHashMap<>();
+
+    /**
+     * @return whether the taxi is now the claimant of the booking; {@code false} if another claim is in progress
+     */
+    public boolean tryClaim(Long bookingId, Long taxiId) {
+        return claimants.putIfAbsent(bookingId, taxiId) == null;
+    }
+
+    /**
+     * Ends the claim of the taxi. Has no effect if the taxi is not the claimant of the booking.
+     */
+    public void release(Long bookingId, Long taxiId) {
+        claimants.remove(bookingId, taxiId);
+    }
+
+    public int size() {
+        return claimants.size();
+    }
+}
@@ -1,5 +1,6 @@
 package com.jetcab.service.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.jetcab.service.booking.model.BookingStatus;
 import com.jetcab.service.location.dto.LocationDTO;
 import com.jetcab.service.passenger.dto.PassengerDTO;
@@ -16,7 +17,7 @@ import java.time.ZonedDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class BookingDTO implements Serializable {
+public class BookingDTO implements BookingNotification, Serializable {
     private Long id;
     private PassengerDTO passenger;
     private LocationDTO pickupLocation;
@@ -24,4 +25,13 @@ public class BookingDTO implements Serializable {
     private BookingStatus status;
     private ZonedDateTime bookedAt;
     private TaxiDTO taxi;
+    private Integer pickupEtaSeconds;
+    private Integer tripDurationSeconds;
+    private Long version;
+
+    @Override
+    @JsonIgnore
+    public Long getBookingId() {
+        return id;
+    }
 }
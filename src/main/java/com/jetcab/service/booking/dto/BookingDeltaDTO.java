@@ -0,0 +1,30 @@
+package com.jetcab.service.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.location.dto.LocationDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Change of a booking sent to taxis that were already offered it. Only the fields that changed are set.
+ * Versions grow by one with every change, so a client that receives a version other than the next one
+ * it expects missed a change and should fetch the full booking.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingDeltaDTO implements BookingNotification, Serializable {
+    private Long bookingId;
+    private Long version;
+    private BookingStatus status;
+    private Long taxiId;
+    private LocationDTO pickupLocation;
+    private LocationDTO dropOffLocation;
+}
@@ -0,0 +1,16 @@
+package com.jetcab.service.booking.dto;
+
+import com.jetcab.service.booking.model.BookingStatus;
+
+/**
+ * A booking as sent to taxis: the full {@link BookingDTO}, or a {@link BookingDeltaDTO} for taxis that already have it.
+ */
+public interface BookingNotification {
+
+    Long getBookingId();
+
+    /**
+     * Status of the booking, or {@code null} when it is not part of the notification.
+     */
+    BookingStatus getStatus();
+}
@@ -0,0 +1,21 @@
+package com.jetcab.service.booking.event;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Published by the booking service when a booking is created or changes state, within the changing transaction.
+ * Changes of an existing booking carry the delta to its previous version; new bookings carry none.
+ */
+@Value
+@AllArgsConstructor
+public class BookingChangedEvent {
+    BookingDTO booking;
+    BookingDeltaDTO delta;
+
+    public BookingChangedEvent(BookingDTO booking) {
+        this(booking, null);
+    }
+}
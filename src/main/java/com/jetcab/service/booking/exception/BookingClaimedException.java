@@ -0,0 +1,11 @@
+package com.jetcab.service.booking.exception;
+
+import com.jetcab.common.exception.ConflictException;
+
+public class BookingClaimedException extends ConflictException {
+    public static final String MESSAGE_KEY = "exception.conflict.booking-claimed";
+
+    public BookingClaimedException() {
+        super(MESSAGE_KEY);
+    }
+}
@@ -3,13 +3,18 @@ package com.jetcab.service.booking.mapper;
 import com.jetcab.common.BaseModelMapper;
 import com.jetcab.service.booking.dto.BookingDTO;
 import com.jetcab.service.booking.model.Booking;
+import com.jetcab.service.eta.EtaService;
+import com.jetcab.service.location.model.Location;
 import com.jetcab.service.location.mapper.LocationMapper;
 import com.jetcab.service.passenger.mapper.PassengerMapper;
 import com.jetcab.service.passenger.model.Passenger;
 import com.jetcab.service.taxi.mapper.TaxiMapper;
+import com.jetcab.service.taxi.model.Taxi;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import static com.jetcab.service.booking.model.BookingStatus.CONFIRMED;
+
 @Component
 @RequiredArgsConstructor
 public class BookingMapper extends BaseModelMapper<Booking, BookingDTO> {
@@ -17,6 +22,7 @@ public class BookingMapper extends BaseModelMapper<Booking, BookingDTO> {
     private final PassengerMapper passengerMapper;
     private final LocationMapper locationMapper;
     private final TaxiMapper taxiMapper;
+    private final EtaService etaService;
 
     @Override
     public BookingDTO map(Booking booking) {
@@ -28,6 +34,32 @@ public class BookingMapper extends BaseModelMapper<Booking, BookingDTO> {
                 .dropOffLocation(locationMapper.map(booking.getDropOffLocation()))
                 .passenger(passengerMapper.map(booking.getPassenger()))
                 .taxi(taxiMapper.map(booking.getTaxi()))
+                .pickupEtaSeconds(estimatePickup(booking))
+                .tripDurationSeconds(estimateTrip(booking))
+                .version(booking.getVersion())
                 .build();
     }
+
+    private Integer estimatePickup(Booking booking) {
+        Taxi taxi = booking.getTaxi();
+        Location pickup = booking.getPickupLocation();
+        if (booking.getStatus() != CONFIRMED || taxi == null || taxi.getLatitude() == null || taxi.getLongitude() == null
+                || !hasCoordinates(pickup)) {
+            return null;
+        }
+        return etaService.estimateSeconds(taxi.getLatitude(), taxi.getLongitude(), pickup.getLatitude(), pickup.getLongitude());
+    }
+
+    private Integer estimateTrip(Booking booking) {
+        Location pickup = booking.getPickupLocation();
+        Location dropOff = booking.getDropOffLocation();
+        if (!hasCoordinates(pickup) || !hasCoordinates(dropOff)) {
+            return null;
+        }
+        return etaService.estimateSeconds(pickup.getLatitude(), pickup.getLongitude(), dropOff.getLatitude(), dropOff.getLongitude());
+    }
+
+    private static boolean hasCoordinates(Location location) {
+        return location != null && location.getLatitude() != null && location.getLongitude() != null;
+    }
 }
@@ -12,8 +12,10 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.ZonedDateTime;
 
@@ -52,4 +54,18 @@ public class Booking {
     @ManyToOne
     @JoinColumn(name = "taxi_id")
     private Taxi taxi;
+
+    @Column(name = "confirmed_at", columnDefinition = "TIMESTAMP")
+    private ZonedDateTime confirmedAt;
+
+    @Column(name = "completed_at", columnDefinition = "TIMESTAMP")
+    private ZonedDateTime completedAt;
+
+    @OptimisticLock(excluded = true)
+    @Column(name = "pickup_eta_seconds")
+    private Integer pickupEtaSeconds;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
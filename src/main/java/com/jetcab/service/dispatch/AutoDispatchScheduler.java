@@ -0,0 +1,103 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.BookingService;
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.dispatch.matching.Matcher;
+import com.jetcab.service.eta.EtaService;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.taxi.index.IndexedTaxi;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.jetcab.common.geo.GeoUtils.distanceKm;
+import static com.jetcab.service.dispatch.matching.Matcher.UNASSIGNED;
+
+/**
+ * Periodically matches all pending bookings against available taxis and confirms the matches in one batch,
+ * instead of letting taxis race for each booking.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jetcab.dispatch.auto.enabled", havingValue = "true")
+public class AutoDispatchScheduler {
+
+    private final DispatchProperties.Auto properties;
+    private final BookingService bookingService;
+    private final TaxiSpatialIndex taxiSpatialIndex;
+    private final EtaService etaService;
+    private final Matcher matcher;
+
+    public AutoDispatchScheduler(DispatchProperties properties, BookingService bookingService,
+                                 TaxiSpatialIndex taxiSpatialIndex, EtaService etaService) {
+        this.properties = properties.getAuto();
+        this.bookingService = bookingService;
+        this.taxiSpatialIndex = taxiSpatialIndex;
+        this.etaService = etaService;
+        this.matcher = Matcher.of(this.properties.getStrategy());
+    }
+
+    @Scheduled(fixedDelayString = "${jetcab.dispatch.auto.interval-ms:1000}")
+    public void dispatchPendingBookings() {
+        List<BookingDTO> bookings = bookingService.getPendingBookings(properties.getMaxBatchSize()).stream()
+                .filter(booking -> booking.getPickupLocation() != null)
+                .toList();
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        List<IndexedTaxi> taxis = findCandidateTaxis(bookings);
+        if (taxis.isEmpty()) {
+            return;
+        }
+
+        int[] assignment = matcher.match(buildCostMatrix(bookings, taxis));
+
+        Map<Long, Long> taxiIdsByBookingId = new HashMap<>();
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] != UNASSIGNED) {
+                taxiIdsByBookingId.put(bookings.get(i).getId(), taxis.get(assignment[i]).getId());
+            }
+        }
+
+        List<BookingDTO> confirmed = bookingService.confirmAssignments(taxiIdsByBookingId);
+        log.info("Auto-dispatch confirmed {} of {} pending bookings with {} candidate taxis", confirmed.size(), bookings.size(), taxis.size());
+    }
+
+    private List<IndexedTaxi> findCandidateTaxis(List<BookingDTO> bookings) {
+        Map<Long, IndexedTaxi> candidates = new LinkedHashMap<>();
+        for (BookingDTO booking : bookings) {
+            LocationDTO pickup = booking.getPickupLocation();
+            for (Long taxiId : taxiSpatialIndex.findWithin(pickup.getLatitude(), pickup.getLongitude(), properties.getMaxPickupKm())) {
+                IndexedTaxi taxi = taxiSpatialIndex.get(taxiId);
+                if (taxi != null) {
+                    candidates.putIfAbsent(taxiId, taxi);
+                }
+            }
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    private double[][] buildCostMatrix(List<BookingDTO> bookings, List<IndexedTaxi> taxis) {
+        double[][] costs = new double[bookings.size()][taxis.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            LocationDTO pickup = bookings.get(i).getPickupLocation();
+            for (int j = 0; j < taxis.size(); j++) {
+                IndexedTaxi taxi = taxis.get(j);
+                double distance = distanceKm(pickup.getLatitude(), pickup.getLongitude(), taxi.getLatitude(), taxi.getLongitude());
+                costs[i][j] = distance <= properties.getMaxPickupKm()
+                        ? etaService.estimateSeconds(taxi.getLatitude(), taxi.getLongitude(), pickup.getLatitude(), pickup.getLongitude())
+                        : Double.POSITIVE_INFINITY;
+            }
+        }
+        return costs;
+    }
+}
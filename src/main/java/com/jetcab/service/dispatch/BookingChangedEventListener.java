@@ -0,0 +1,29 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.event.BookingChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import static org.springframework.transaction.event.TransactionPhase.AFTER_COMMIT;
+
+/**
+ * Dispatches booking changes to taxis once the changing transaction has committed, off the request thread.
+ * Changes of rolled back transactions are never dispatched. Used with the {@code DIRECT} delivery mode;
+ * the default {@code OUTBOX} mode dispatches through the outbox relay instead.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jetcab.notification.delivery", havingValue = "DIRECT")
+public class BookingChangedEventListener {
+
+    private final DispatchService dispatchService;
+
+    @Async
+    @TransactionalEventListener(phase = AFTER_COMMIT)
+    public void onBookingChanged(BookingChangedEvent event) {
+        dispatchService.publishBooking(event.getBooking(), event.getDelta());
+    }
+}
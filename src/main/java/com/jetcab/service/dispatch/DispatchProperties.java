@@ -0,0 +1,61 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.dispatch.matching.MatchingStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.dispatch")
+public class DispatchProperties {
+
+    private FanOutMode fanOutMode = FanOutMode.ALL;
+
+    /**
+     * Radius around the pickup location used by the {@link FanOutMode#PROXIMITY} mode, in kilometers.
+     */
+    private double fanOutRadiusKm = 5.0;
+
+    private Auto auto = new Auto();
+
+    private Wave wave = new Wave();
+
+    @Data
+    public static class Auto {
+
+        /**
+         * Whether pending bookings are periodically matched to available taxis without waiting for a taxi to take them.
+         */
+        private boolean enabled = false;
+
+        private long intervalMs = 1000;
+
+        private MatchingStrategy strategy = MatchingStrategy.GREEDY;
+
+        /**
+         * Taxis further than this from the pickup location are never assigned, in kilometers.
+         */
+        private double maxPickupKm = 10.0;
+
+        /**
+         * Maximum number of pending bookings matched in one run, oldest first.
+         */
+        private int maxBatchSize = 200;
+    }
+
+    @Data
+    public static class Wave {
+
+        private double initialRadiusKm = 1.0;
+
+        private double radiusGrowthFactor = 2.0;
+
+        private double maxRadiusKm = 10.0;
+
+        /**
+         * Delay between two consecutive waves of the same booking.
+         */
+        private long intervalMs = 5000;
+
+        private int maxTaxisPerWave = 5;
+    }
+}
@@ -0,0 +1,22 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface DispatchService {
+
+    /**
+     * Sends a new or changed booking to taxis. Taxis that were offered the booking before get only the delta,
+     * when there is one; the booking itself is used for routing and for taxis that see it for the first time.
+     * Once the booking leaves PENDING, the change only goes to the taxis that received the offer and to the
+     * assigned taxi, and the offer is forgotten. Pending changes handled after that are stale and ignored.
+     *
+     * @param booking current state of the booking
+     * @param delta   change to the previous version, or {@code null} for a new booking
+     * @return completes once the change was delivered to the taxis, in wave mode to those of the first wave;
+     * fails if any delivery was dead-lettered
+     */
+    CompletableFuture<Void> publishBooking(BookingDTO booking, BookingDeltaDTO delta);
+}
@@ -0,0 +1,89 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+import com.jetcab.service.booking.dto.BookingNotification;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.offer.OfferRegistry;
+import com.jetcab.service.region.RegionService;
+import com.jetcab.service.taxi.TaxiService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.jetcab.service.booking.model.BookingStatus.PENDING;
+import static com.jetcab.service.dispatch.FanOutMode.CONNECTED;
+import static com.jetcab.service.dispatch.FanOutMode.PROXIMITY;
+import static com.jetcab.service.dispatch.FanOutMode.REGION;
+import static com.jetcab.service.dispatch.FanOutMode.WAVE;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DispatchServiceImpl implements DispatchService {
+
+    private final DispatchProperties properties;
+    private final TaxiService taxiService;
+    private final NotificationService notificationService;
+    private final OfferRegistry offerRegistry;
+    private final WaveDispatcher waveDispatcher;
+    private final RegionService regionService;
+
+    @Override
+    public CompletableFuture<Void> publishBooking(BookingDTO booking, BookingDeltaDTO delta) {
+        BookingNotification change = delta != null ? delta : booking;
+        if (booking.getStatus() == PENDING && offerRegistry.isReleased(booking.getId())) {
+            log.debug("Skipping stale pending change of booking {} that was already revoked", booking.getId());
+            return CompletableFuture.completedFuture(null);
+        }
+        LocationDTO pickup = booking.getPickupLocation();
+        if (properties.getFanOutMode() == REGION && pickup != null) {
+            if (booking.getStatus() != PENDING) {
+                offerRegistry.release(booking.getId());
+            }
+            return notificationService.publishBookingToRegion(change, regionService.getTopic(pickup.getLatitude(), pickup.getLongitude()));
+        }
+        if (booking.getStatus() != PENDING) {
+            return revokeOffer(booking, change);
+        }
+        CompletableFuture<Void> deltaSent = CompletableFuture.completedFuture(null);
+        if (delta != null) {
+            deltaSent = notificationService.publishBookingToAvailableTaxis(delta, offerRegistry.getOffered(booking.getId()));
+        }
+        if (properties.getFanOutMode() == WAVE && pickup != null) {
+            return CompletableFuture.allOf(deltaSent, waveDispatcher.offer(booking));
+        }
+        List<Long> taxiIds = offerRegistry.record(booking.getId(), findTaxisToNotify(booking));
+        return CompletableFuture.allOf(deltaSent, notificationService.publishBookingToAvailableTaxis(booking, taxiIds));
+    }
+
+    /**
+     * Sends the change of a booking that left PENDING to the taxis it was offered to and to its assigned taxi,
+     * then forgets the offer. Waves are closed first so that none of them records an offer after the release.
+     */
+    private CompletableFuture<Void> revokeOffer(BookingDTO booking, BookingNotification change) {
+        waveDispatcher.close(booking.getId());
+        List<Long> recipients = new ArrayList<>(offerRegistry.release(booking.getId()));
+        Long assignedTaxiId = booking.getTaxi() != null ? booking.getTaxi().getId() : null;
+        if (assignedTaxiId != null && !recipients.contains(assignedTaxiId)) {
+            recipients.add(assignedTaxiId);
+        }
+        return notificationService.publishBookingToAvailableTaxis(change, recipients);
+    }
+
+    private List<Long> findTaxisToNotify(BookingDTO booking) {
+        LocationDTO pickup = booking.getPickupLocation();
+        if (properties.getFanOutMode() == PROXIMITY && pickup != null) {
+            return taxiService.getAvailableTaxiIDsWithin(pickup.getLatitude(), pickup.getLongitude(), properties.getFanOutRadiusKm());
+        }
+        if (properties.getFanOutMode() == CONNECTED) {
+            return taxiService.getAvailableConnectedTaxiIDs();
+        }
+        return taxiService.getAvailableTaxiIDs();
+    }
+}
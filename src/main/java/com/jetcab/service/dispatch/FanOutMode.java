@@ -0,0 +1,26 @@
+package com.jetcab.service.dispatch;
+
+public enum FanOutMode {
+    /**
+     * Every available taxi receives the booking.
+     */
+    ALL,
+    /**
+     * Only available taxis within the configured radius of the pickup location receive the booking.
+     */
+    PROXIMITY,
+    /**
+     * Only available taxis that currently have an open WebSocket subscription receive the booking.
+     */
+    CONNECTED,
+    /**
+     * The booking is published once to the topic of its pickup region, and the broker delivers it
+     * to every taxi subscribed to that region. Taxis filter the offers themselves.
+     */
+    REGION,
+    /**
+     * The booking is offered to the nearest few taxis first, then to taxis in a growing radius
+     * until it is taken or the maximum radius is reached.
+     */
+    WAVE
+}
@@ -0,0 +1,128 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.offer.OfferRegistry;
+import com.jetcab.service.taxi.index.NearbyTaxi;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Offers a pending booking in timed waves of growing radius around its pickup location.
+ * Every wave only targets taxis that did not receive the offer yet, as recorded in the {@link OfferRegistry};
+ * waves stop once the booking is closed.
+ */
+@Slf4j
+@Component
+public class WaveDispatcher {
+
+    private final DispatchProperties.Wave properties;
+    private final TaxiSpatialIndex taxiSpatialIndex;
+    private final NotificationService notificationService;
+    private final OfferRegistry offerRegistry;
+    private final TaskScheduler taskScheduler;
+
+    private final Map<Long, WaveState> waves = new ConcurrentHashMap<>();
+
+    public WaveDispatcher(DispatchProperties properties, TaxiSpatialIndex taxiSpatialIndex, NotificationService notificationService,
+                          OfferRegistry offerRegistry, TaskScheduler taskScheduler) {
+        this.properties = properties.getWave();
+        this.taxiSpatialIndex = taxiSpatialIndex;
+        this.notificationService = notificationService;
+        this.offerRegistry = offerRegistry;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Starts waves for a new booking, or makes later waves offer the updated booking.
+     *
+     * @return completes once the offers of the first wave were delivered, right away for an updated booking
+     */
+    public CompletableFuture<Void> offer(BookingDTO booking) {
+        WaveState created = new WaveState(booking);
+        WaveState existing = waves.putIfAbsent(booking.getId(), created);
+        if (existing != null) {
+            synchronized (existing) {
+                existing.booking = booking;
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        return runWave(created);
+    }
+
+    /**
+     * Cancels the remaining waves of the booking. No wave records further offers once this returns.
+     */
+    public void close(Long bookingId) {
+        WaveState state = waves.remove(bookingId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.closed = true;
+            if (state.nextWave != null) {
+                state.nextWave.cancel(false);
+            }
+        }
+    }
+
+    public int activeCount() {
+        return waves.size();
+    }
+
+    private CompletableFuture<Void> runWave(WaveState state) {
+        BookingDTO booking;
+        List<Long> targets;
+        synchronized (state) {
+            if (state.closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            booking = state.booking;
+            LocationDTO pickup = booking.getPickupLocation();
+            double radiusKm = radius(state.wave);
+
+            int limit = offerRegistry.offeredCount(booking.getId()) + properties.getMaxTaxisPerWave();
+            List<Long> candidates = new ArrayList<>();
+            for (NearbyTaxi nearby : taxiSpatialIndex.findNearest(pickup.getLatitude(), pickup.getLongitude(), limit, radiusKm)) {
+                candidates.add(nearby.getTaxi().getId());
+            }
+            targets = offerRegistry.record(booking.getId(), candidates, properties.getMaxTaxisPerWave());
+
+            if (radiusKm < properties.getMaxRadiusKm()) {
+                state.wave++;
+                state.nextWave = taskScheduler.schedule(() -> runWave(state), taskScheduler.getClock().instant()
+                        .plus(Duration.ofMillis(properties.getIntervalMs())));
+            } else {
+                state.nextWave = null;
+            }
+        }
+        log.debug("Wave {} of booking {} offered to {} taxis", state.wave, booking.getId(), targets.size());
+        return notificationService.publishBookingToAvailableTaxis(booking, targets);
+    }
+
+    private double radius(int wave) {
+        return Math.min(properties.getInitialRadiusKm() * Math.pow(properties.getRadiusGrowthFactor(), wave), properties.getMaxRadiusKm());
+    }
+
+    private static class WaveState {
+        private BookingDTO booking;
+        private int wave;
+        private boolean closed;
+        private ScheduledFuture<?> nextWave;
+
+        private WaveState(BookingDTO booking) {
+            this.booking = booking;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.jetcab.service.dispatch.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+public class GreedyMatcher implements Matcher {
+
+    @Override
+    public int[] match(double[][] costs) {
+        int[] assignment = new int[costs.length];
+        Arrays.fill(assignment, UNASSIGNED);
+        if (costs.length == 0) {
+            return assignment;
+        }
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int row = 0; row < costs.length; row++) {
+            for (int column = 0; column < costs[row].length; column++) {
+                if (costs[row][column] != Double.POSITIVE_INFINITY) {
+                    pairs.add(new int[]{row, column});
+                }
+            }
+        }
+        pairs.sort(Comparator.comparingDouble(pair -> costs[pair[0]][pair[1]]));
+
+        boolean[] takenColumns = new boolean[costs[0].length];
+        for (int[] pair : pairs) {
+            if (assignment[pair[0]] == UNASSIGNED && !takenColumns[pair[1]]) {
+                assignment[pair[0]] = pair[1];
+                takenColumns[pair[1]] = true;
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,112 @@
+package com.jetcab.service.dispatch.matching;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment using the Hungarian algorithm with row/column potentials.
+ * Forbidden pairs are priced above any feasible assignment and dropped from the result.
+ */
+public class HungarianMatcher implements Matcher {
+
+    @Override
+    public int[] match(double[][] costs) {
+        int rows = costs.length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, UNASSIGNED);
+        if (rows == 0 || costs[0].length == 0) {
+            return assignment;
+        }
+        int columns = costs[0].length;
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+
+        double forbidden = forbiddenCost(costs);
+        double[][] a = new double[n + 1][m + 1];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double cost = transposed ? costs[j][i] : costs[i][j];
+                a[i + 1][j + 1] = cost == Double.POSITIVE_INFINITY ? forbidden : cost;
+            }
+        }
+
+        int[] columnOwner = solve(a, n, m);
+
+        for (int j = 1; j <= m; j++) {
+            int i = columnOwner[j];
+            if (i == 0 || a[i][j] >= forbidden) {
+                continue;
+            }
+            if (transposed) {
+                assignment[j - 1] = i - 1;
+            } else {
+                assignment[i - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * @return for every column (1-based) the row (1-based) assigned to it, 0 if none
+     */
+    private int[] solve(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            double[] minv = new double[m + 1];
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            boolean[] used = new boolean[m + 1];
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double current = a[i0][j] - u[i0] - v[j];
+                        if (current < minv[j]) {
+                            minv[j] = current;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        return p;
+    }
+
+    private double forbiddenCost(double[][] costs) {
+        double max = 0;
+        for (double[] row : costs) {
+            for (double cost : row) {
+                if (cost != Double.POSITIVE_INFINITY) {
+                    max = Math.max(max, Math.abs(cost));
+                }
+            }
+        }
+        return (max + 1) * (costs.length + costs[0].length + 1);
+    }
+}
@@ -0,0 +1,21 @@
+package com.jetcab.service.dispatch.matching;
+
+public interface Matcher {
+
+    int UNASSIGNED = -1;
+
+    /**
+     * Computes an assignment of rows (bookings) to columns (taxis).
+     * A cost of {@link Double#POSITIVE_INFINITY} marks a pair that must not be assigned.
+     *
+     * @return array indexed by row holding the assigned column or {@link #UNASSIGNED}
+     */
+    int[] match(double[][] costs);
+
+    static Matcher of(MatchingStrategy strategy) {
+        return switch (strategy) {
+            case GREEDY -> new GreedyMatcher();
+            case HUNGARIAN -> new HungarianMatcher();
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.jetcab.service.dispatch.matching;
+
+public enum MatchingStrategy {
+    /**
+     * Repeatedly assigns the cheapest remaining booking/taxi pair.
+     */
+    GREEDY,
+    /**
+     * Minimizes the total cost of all assignments (Hungarian algorithm), O(n^2 * m).
+     */
+    HUNGARIAN
+}
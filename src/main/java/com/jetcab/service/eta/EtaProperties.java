@@ -0,0 +1,42 @@
+package com.jetcab.service.eta;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.eta")
+public class EtaProperties {
+
+    /**
+     * Bounding box of the service area covered by the travel-time matrix. Estimates outside of it use the baseline.
+     */
+    private double minLatitude = 24.0;
+    private double maxLatitude = 25.6;
+    private double minLongitude = 54.0;
+    private double maxLongitude = 56.0;
+
+    /**
+     * Edge length of a cell of the travel-time matrix, in kilometers.
+     */
+    private double cellSizeKm = 5.0;
+
+    /**
+     * Upper bound on the number of cells, the matrix holds the square of it.
+     */
+    private int maxCells = 4096;
+
+    /**
+     * Average driving speed of the baseline estimate, in km/h.
+     */
+    private double averageSpeedKmh = 30.0;
+
+    /**
+     * Ratio of the road distance to the great-circle distance used by the baseline estimate.
+     */
+    private double detourFactor = 1.3;
+
+    /**
+     * Weight of a newly observed trip in the exponentially weighted moving average of a cell pair.
+     */
+    private double learningRate = 0.2;
+}
@@ -0,0 +1,14 @@
+package com.jetcab.service.eta;
+
+public interface EtaService {
+
+    /**
+     * Estimated driving time between two points, in seconds.
+     */
+    int estimateSeconds(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude);
+
+    /**
+     * Feeds the duration of a completed trip back into the estimates.
+     */
+    void recordTrip(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude, long durationSeconds);
+}
@@ -0,0 +1,63 @@
+package com.jetcab.service.eta;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import static com.jetcab.common.geo.GeoUtils.distanceKm;
+
+/**
+ * Estimates travel time as the great-circle distance multiplied by the pace of the cell pair.
+ * The pace starts at the baseline derived from the average speed and detour factor and drifts towards
+ * the pace observed on completed trips.
+ */
+@Slf4j
+@Service
+public class EtaServiceImpl implements EtaService {
+
+    /**
+     * Observed trips deviating from the baseline by more than this factor are clamped, they are most likely
+     * waiting time or bad data rather than traffic.
+     */
+    private static final float MAX_DEVIATION = 4f;
+
+    private final TravelTimeMatrix matrix;
+    private final float baselineSecondsPerKm;
+    private final float learningRate;
+
+    public EtaServiceImpl(EtaProperties properties) {
+        this.baselineSecondsPerKm = (float) (3600 * properties.getDetourFactor() / properties.getAverageSpeedKmh());
+        this.learningRate = (float) properties.getLearningRate();
+        this.matrix = new TravelTimeMatrix(properties.getMinLatitude(), properties.getMaxLatitude(),
+                properties.getMinLongitude(), properties.getMaxLongitude(),
+                properties.getCellSizeKm(), properties.getMaxCells(), baselineSecondsPerKm);
+        log.info("Initialized travel-time matrix with {} cells", matrix.cells());
+    }
+
+    @Override
+    public int estimateSeconds(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double distance = distanceKm(fromLatitude, fromLongitude, toLatitude, toLongitude);
+        return (int) Math.round(distance * secondsPerKm(fromLatitude, fromLongitude, toLatitude, toLongitude));
+    }
+
+    @Override
+    public void recordTrip(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude, long durationSeconds) {
+        int fromCell = matrix.cellOf(fromLatitude, fromLongitude);
+        int toCell = matrix.cellOf(toLatitude, toLongitude);
+        double distance = distanceKm(fromLatitude, fromLongitude, toLatitude, toLongitude);
+        if (fromCell < 0 || toCell < 0 || distance < 0.1 || durationSeconds <= 0) {
+            return;
+        }
+        float observed = (float) (durationSeconds / distance);
+        observed = Math.max(baselineSecondsPerKm / MAX_DEVIATION, Math.min(baselineSecondsPerKm * MAX_DEVIATION, observed));
+        matrix.observe(fromCell, toCell, observed, learningRate);
+    }
+
+    private float secondsPerKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        int fromCell = matrix.cellOf(fromLatitude, fromLongitude);
+        int toCell = matrix.cellOf(toLatitude, toLongitude);
+        if (fromCell < 0 || toCell < 0) {
+            return baselineSecondsPerKm;
+        }
+        return matrix.secondsPerKm(fromCell, toCell);
+    }
+}
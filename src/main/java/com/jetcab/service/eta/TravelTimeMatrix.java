@@ -0,0 +1,70 @@
+package com.jetcab.service.eta;
+
+import com.jetcab.common.geo.GeoGrid;
+
+import java.util.Arrays;
+
+/**
+ * Cell-to-cell table of travel pace, in seconds per great-circle kilometer, over a rectangular service area.
+ * Pace rather than absolute time is stored so that estimates stay accurate for points within the same or
+ * neighbouring cells, whatever the cell size. Values live in a single {@code float[]} indexed by
+ * {@code from * cells + to}, so a lookup is two cell computations and one array read.
+ * <p>
+ * Updates are plain float writes: a concurrent reader sees either the old or the new pace, which is fine for an estimate.
+ */
+public class TravelTimeMatrix {
+
+    private final GeoGrid grid;
+    private final int firstRow;
+    private final int firstColumn;
+    private final int rows;
+    private final int columns;
+    private final int cells;
+    private final float[] secondsPerKm;
+
+    public TravelTimeMatrix(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+                            double cellSizeKm, int maxCells, float baselineSecondsPerKm) {
+        if (minLatitude >= maxLatitude || minLongitude >= maxLongitude) {
+            throw new IllegalArgumentException("Service area bounds are empty");
+        }
+        this.grid = new GeoGrid(cellSizeKm);
+        this.firstRow = grid.row(minLatitude);
+        this.firstColumn = grid.column(minLongitude);
+        this.rows = grid.row(maxLatitude) - firstRow + 1;
+        this.columns = grid.column(maxLongitude) - firstColumn + 1;
+        this.cells = rows * columns;
+        if (cells > maxCells) {
+            throw new IllegalArgumentException("Service area has " + cells + " cells, at most " + maxCells + " are allowed");
+        }
+        this.secondsPerKm = new float[cells * cells];
+        Arrays.fill(secondsPerKm, baselineSecondsPerKm);
+    }
+
+    public int cells() {
+        return cells;
+    }
+
+    /**
+     * Index of the cell containing the point, or -1 if it is outside of the service area.
+     */
+    public int cellOf(double latitude, double longitude) {
+        int row = grid.row(latitude) - firstRow;
+        int column = grid.column(longitude) - firstColumn;
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    public float secondsPerKm(int fromCell, int toCell) {
+        return secondsPerKm[fromCell * cells + toCell];
+    }
+
+    /**
+     * Blends an observed pace into the pace of the cell pair with the given weight.
+     */
+    public void observe(int fromCell, int toCell, float observedSecondsPerKm, float weight) {
+        int index = fromCell * cells + toCell;
+        secondsPerKm[index] += weight * (observedSecondsPerKm - secondsPerKm[index]);
+    }
+}
@@ -0,0 +1,21 @@
+package com.jetcab.service.location;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.location")
+public class LocationProperties {
+
+    /**
+     * Edge length of the grid cell within which coordinates resolve to the same location, in kilometers.
+     * Must match the value the locations were keyed with, see {@code spring.flyway.placeholders.location_cell_size_km};
+     * the application does not start otherwise.
+     */
+    private double cellSizeKm = 0.005;
+
+    /**
+     * Maximum number of locations kept in the in-process lookup cache.
+     */
+    private int cacheSize = 10_000;
+}
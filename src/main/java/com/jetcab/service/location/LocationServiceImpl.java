@@ -1,34 +1,90 @@
 package com.jetcab.service.location;
 
+import com.jetcab.common.geo.GeoGrid;
 import com.jetcab.persistence.LocationRepository;
+import com.jetcab.service.location.cache.LocationCache;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
 import com.jetcab.service.location.model.Location;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
-
-import static org.springframework.transaction.annotation.Propagation.REQUIRES_NEW;
-import static org.springframework.util.CollectionUtils.isEmpty;
+import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 public class LocationServiceImpl implements LocationService {
 
     private final LocationRepository locationRepository;
+    private final LocationCache locationCache;
+    private final double cellSizeKm;
+    private final GeoGrid grid;
+    private final TransactionTemplate insertTransaction;
+
+    public LocationServiceImpl(LocationRepository locationRepository, LocationCache locationCache, LocationProperties properties,
+                               PlatformTransactionManager transactionManager) {
+        this.locationRepository = locationRepository;
+        this.locationCache = locationCache;
+        this.cellSizeKm = properties.getCellSizeKm();
+        this.grid = new GeoGrid(cellSizeKm);
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Fails when the configured cell size differs from the one the stored locations were keyed with,
+     * as keys of different grids collide and coordinates would resolve to unrelated locations.
+     */
+    @PostConstruct
+    public void verifyCellSize() {
+        double storedCellSizeKm = locationRepository.findCellSizeKm()
+                .orElseThrow(() -> new IllegalStateException("The cell size of the stored locations is not recorded"));
+        if (Double.compare(storedCellSizeKm, cellSizeKm) != 0) {
+            throw new IllegalStateException("jetcab.location.cell-size-km is %s, but the stored locations were keyed with %s"
+                    .formatted(cellSizeKm, storedCellSizeKm));
+        }
+    }
 
+    /**
+     * Resolves the coordinates to the location of their grid cell, creating it on first use.
+     * Cache hits return a detached copy and do not touch the database.
+     */
     @Override
-    @Transactional(propagation = REQUIRES_NEW)
+    @Transactional
     public Location findOrCreate(ModifyLocationDTO dto) {
-        List<Location> locations = locationRepository.findAllByLatitudeAndLongitude(dto.getLatitude(), dto.getLongitude());
-        if (isEmpty(locations)) {
-            Location location = new Location();
-            location.setLatitude(dto.getLatitude());
-            location.setLongitude(dto.getLongitude());
-            return locationRepository.saveAndFlush(location);
-        } else {
-            return locations.get(0);
+        long cellKey = grid.cellKey(dto.getLatitude(), dto.getLongitude());
+        Location cached = locationCache.get(cellKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<Location> existing = locationRepository.findByCellKey(cellKey);
+        if (existing.isPresent()) {
+            locationCache.put(existing.get());
+            return existing.get();
+        }
+
+        Location location = new Location();
+        location.setLatitude(dto.getLatitude());
+        location.setLongitude(dto.getLongitude());
+        location.setCellKey(cellKey);
+        Location created = insert(location);
+        locationCache.put(created);
+        return created;
+    }
+
+    /**
+     * Inserts the location in its own transaction, so that losing the race for a new cell against a concurrent
+     * request fails only the insert, not the caller's transaction. The loser then reads the winner's location.
+     */
+    private Location insert(Location location) {
+        try {
+            return insertTransaction.execute(status -> locationRepository.saveAndFlush(location));
+        } catch (DataIntegrityViolationException e) {
+            return locationRepository.findByCellKey(location.getCellKey()).orElseThrow(() -> e);
         }
     }
 }
@@ -0,0 +1,58 @@
+package com.jetcab.service.location.cache;
+
+import com.jetcab.service.location.LocationProperties;
+import com.jetcab.service.location.model.Location;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of persisted locations by cell key.
+ * Entries are kept as detached copies so that callers never share an instance across persistence contexts.
+ */
+@Component
+public class LocationCache {
+
+    private final Map<Long, Location> locations;
+
+    public LocationCache(LocationProperties properties) {
+        int capacity = properties.getCacheSize();
+        this.locations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Location> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Location get(long cellKey) {
+        Location location;
+        synchronized (locations) {
+            location = locations.get(cellKey);
+        }
+        return location == null ? null : copyOf(location);
+    }
+
+    public void put(Location location) {
+        Location copy = copyOf(location);
+        synchronized (locations) {
+            locations.put(copy.getCellKey(), copy);
+        }
+    }
+
+    public int size() {
+        synchronized (locations) {
+            return locations.size();
+        }
+    }
+
+    private static Location copyOf(Location location) {
+        Location copy = new Location();
+        copy.setId(location.getId());
+        copy.setLatitude(location.getLatitude());
+        copy.setLongitude(location.getLongitude());
+        copy.setCellKey(location.getCellKey());
+        return copy;
+    }
+}
@@ -1,12 +1,16 @@
 package com.jetcab.service.location.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class LocationDTO implements Serializable {
     private Long id;
     private Double latitude;
@@ -26,4 +26,7 @@ public class Location {
 
     @Column(name = "longitude")
     private Double longitude;
+
+    @Column(name = "cell_key", unique = true)
+    private Long cellKey;
 }
@@ -0,0 +1,15 @@
+package com.jetcab.service.notification;
+
+/**
+ * How booking changes reach the dispatcher once their transaction commits.
+ */
+public enum DeliveryMode {
+    /**
+     * Dispatched asynchronously right after commit. Changes are lost if the application stops before dispatching.
+     */
+    DIRECT,
+    /**
+     * Written to the outbox table in the changing transaction and dispatched by the outbox relay, at least once.
+     */
+    OUTBOX
+}
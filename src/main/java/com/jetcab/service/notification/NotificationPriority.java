@@ -0,0 +1,38 @@
+package com.jetcab.service.notification;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingNotification;
+
+import static com.jetcab.service.booking.model.BookingStatus.PENDING;
+
+/**
+ * Delivery lanes of the notification executor, in the order in which they take their turn.
+ */
+public enum NotificationPriority {
+
+    /**
+     * The booking is no longer open: confirmed, cancelled or completed. Taxis must stop chasing it.
+     */
+    REVOCATION,
+
+    /**
+     * A change of a booking that is still open, or a message other than a booking.
+     */
+    UPDATE,
+
+    /**
+     * A booking offered to a taxi for the first time.
+     */
+    OFFER;
+
+    /**
+     * A booking that left PENDING is a revocation. Otherwise the full booking is an offer and a delta,
+     * whose status is left out when unchanged, an update.
+     */
+    public static NotificationPriority of(BookingNotification booking) {
+        if (booking.getStatus() != null && booking.getStatus() != PENDING) {
+            return REVOCATION;
+        }
+        return booking instanceof BookingDTO ? OFFER : UPDATE;
+    }
+}
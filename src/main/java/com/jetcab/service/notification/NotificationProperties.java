@@ -0,0 +1,131 @@
+package com.jetcab.service.notification;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.notification")
+public class NotificationProperties {
+
+    private DeliveryMode delivery = DeliveryMode.OUTBOX;
+    private Executor executor = new Executor();
+    private Retry retry = new Retry();
+    private Outbox outbox = new Outbox();
+    private SessionQueue sessionQueue = new SessionQueue();
+    private Offer offer = new Offer();
+
+    @Data
+    public static class Executor {
+
+        /**
+         * Number of threads delivering notifications to taxis.
+         */
+        private int concurrency = 8;
+
+        /**
+         * Maximum number of pending deliveries per priority lane. Deliveries beyond it are rejected and counted.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Number of deliveries a lane may run in a row before the next lane gets its turn.
+         */
+        private Map<NotificationPriority, Integer> weights = new EnumMap<>(Map.of(
+                NotificationPriority.REVOCATION, 8,
+                NotificationPriority.UPDATE, 4,
+                NotificationPriority.OFFER, 1));
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Total number of delivery attempts, including the first one, before a notification is dead-lettered.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Delay before the first retry, in milliseconds. Each further retry multiplies it by the multiplier.
+         */
+        private long initialBackoffMs = 2000;
+
+        private double multiplier = 2.0;
+
+        /**
+         * Upper bound of the delay between retries, in milliseconds.
+         */
+        private long maxBackoffMs = 30_000;
+
+        /**
+         * Fraction of the delay randomly added or subtracted, so that retries of a burst of failures spread out.
+         */
+        private double jitter = 0.2;
+
+        /**
+         * Tick duration of the retry timing wheel, in milliseconds.
+         */
+        private long tickMs = 100;
+
+        /**
+         * Number of buckets of the retry timing wheel, rounded up to a power of two.
+         */
+        private int wheelSize = 512;
+
+        /**
+         * Maximum number of dead-lettered notifications kept in memory. The oldest are evicted first.
+         */
+        private int deadLetterCapacity = 1000;
+    }
+
+    @Data
+    public static class Outbox {
+
+        /**
+         * Maximum number of outbox rows claimed and relayed at once.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Delay between outbox polls, in milliseconds.
+         */
+        private long pollIntervalMs = 200;
+
+        /**
+         * Time after which rows claimed by a relay that did not delete them may be claimed again, in milliseconds.
+         */
+        private long claimTimeoutMs = 30_000;
+    }
+
+    @Data
+    public static class SessionQueue {
+
+        /**
+         * Maximum number of frames queued per WebSocket session. Frames about a queued booking replace it
+         * and do not count against the limit.
+         */
+        private int capacity = 64;
+
+        /**
+         * Time a session may stay saturated, with a full queue or a stuck write, before it is closed, in milliseconds.
+         */
+        private long saturationTimeoutMs = 10_000;
+
+        /**
+         * Number of threads writing queued frames to the sessions.
+         */
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Offer {
+
+        /**
+         * Time a booking that left PENDING is remembered after its offer was released, in milliseconds.
+         * Changes of the booking that arrive late within it are not offered again.
+         */
+        private long releasedRetentionMs = 300_000;
+    }
+}
@@ -1,12 +1,42 @@
 package com.jetcab.service.notification;
 
-import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingNotification;
+import com.jetcab.service.notification.dto.DeadLetterDTO;
+import org.springframework.messaging.Message;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface NotificationService {
 
-    void publishBookingToAvailableTaxis(BookingDTO booking, List<Long> availableTaxisIDs);
+    String TAXI_ENDPOINT_PREFIX = "/topic/bookings/";
 
-    void notifyTaxi(BookingDTO booking, Long taxiId);
+    /**
+     * STOMP header carrying the ID of the booking a message is about. Outbound session queues conflate by it.
+     */
+    String BOOKING_ID_HEADER = "booking-id";
+
+    /**
+     * Sends a booking, or a change of a booking, to each of the given taxis.
+     *
+     * @param booking the booking, or its delta for taxis that already have the booking
+     * @return completes once every delivery was sent or dropped as stale; fails if any of them was dead-lettered
+     */
+    CompletableFuture<Void> publishBookingToAvailableTaxis(BookingNotification booking, List<Long> availableTaxisIDs);
+
+    void notifyTaxi(Message<?> message, Long taxiId);
+
+    /**
+     * Sends a booking, or a change of a booking, to the taxis subscribed to a region topic.
+     *
+     * @return completes once every delivery was sent or dropped as stale; fails if any of them was dead-lettered
+     */
+    CompletableFuture<Void> publishBookingToRegion(BookingNotification booking, String regionTopic);
+
+    /**
+     * Sends a payload other than a booking to a destination of the given taxi.
+     */
+    void notifyTaxi(Long taxiId, String destination, Object payload);
+
+    List<DeadLetterDTO> getDeadLetters();
 }
@@ -1,57 +1,336 @@
 package com.jetcab.service.notification;
 
-import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.common.concurrent.HashedTimingWheel;
+import com.jetcab.common.concurrent.WeightedLaneExecutor;
+import com.jetcab.service.booking.dto.BookingNotification;
+import com.jetcab.service.notification.dto.DeadLetterDTO;
+import com.jetcab.service.notification.mapper.DeadLetterMapper;
+import com.jetcab.service.notification.offer.OfferRegistry;
+import com.jetcab.service.notification.retry.DeadLetter;
+import com.jetcab.service.notification.retry.DeadLetterStore;
+import com.jetcab.service.notification.retry.RetryBackoff;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.jetcab.configuration.NotificationExecutorConfiguration.NOTIFICATION_EXECUTOR;
+import static com.jetcab.configuration.NotificationExecutorConfiguration.NOTIFICATION_RETRY_WHEEL;
+import static com.jetcab.configuration.WebSocketConfiguration.CBOR_MESSAGE_CONVERTER;
 
 @Slf4j
 @Service
 public class NotificationServiceImpl implements NotificationService {
 
-    private static final String TAXI_ENDPOINT_TEMPLATE = "/topic/bookings/%s";
+    private static final int BOOKING_LOCK_STRIPES = 64;
 
     private final SimpMessagingTemplate messagingTemplate;
-    private final NotificationService notificationService;
+    private final Map<PayloadFormat, MessageConverter> messageConverters = new EnumMap<>(PayloadFormat.class);
+    private final TaxiSessionRegistry taxiSessionRegistry;
+    private final WeightedLaneExecutor<NotificationPriority> notificationExecutor;
+    private final HashedTimingWheel retryWheel;
+    private final DeadLetterStore deadLetterStore;
+    private final DeadLetterMapper deadLetterMapper;
+    private final NotificationProperties.Retry retryProperties;
+    private final RetryBackoff retryBackoff;
+    private final OfferRegistry offerRegistry;
+
+    private final Map<Long, String> taxiEndpoints = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] bookingLocks = new ReadWriteLock[BOOKING_LOCK_STRIPES];
 
-    @Autowired
-    public NotificationServiceImpl(SimpMessagingTemplate messagingTemplate, @Lazy NotificationService notificationService) {
+    public NotificationServiceImpl(SimpMessagingTemplate messagingTemplate,
+                                   @Qualifier("brokerMessageConverter") MessageConverter messageConverter,
+                                   @Qualifier(CBOR_MESSAGE_CONVERTER) MessageConverter cborMessageConverter,
+                                   TaxiSessionRegistry taxiSessionRegistry,
+                                   @Qualifier(NOTIFICATION_EXECUTOR) WeightedLaneExecutor<NotificationPriority> notificationExecutor,
+                                   @Qualifier(NOTIFICATION_RETRY_WHEEL) HashedTimingWheel retryWheel,
+                                   DeadLetterStore deadLetterStore,
+                                   DeadLetterMapper deadLetterMapper,
+                                   NotificationProperties properties,
+                                   OfferRegistry offerRegistry) {
         this.messagingTemplate = messagingTemplate;
-        this.notificationService = notificationService;
+        this.messageConverters.put(PayloadFormat.JSON, messageConverter);
+        this.messageConverters.put(PayloadFormat.CBOR, cborMessageConverter);
+        this.taxiSessionRegistry = taxiSessionRegistry;
+        this.notificationExecutor = notificationExecutor;
+        this.retryWheel = retryWheel;
+        this.deadLetterStore = deadLetterStore;
+        this.deadLetterMapper = deadLetterMapper;
+        this.retryProperties = properties.getRetry();
+        this.retryBackoff = new RetryBackoff(retryProperties);
+        this.offerRegistry = offerRegistry;
+        for (int i = 0; i < BOOKING_LOCK_STRIPES; i++) {
+            bookingLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Serializes the booking once per payload format in use by the taxis and sends the same message to every taxi
+     * of that format. Only the destination header differs per taxi, the payload bytes are shared.
+     * Deliveries run on the bounded notification executor, in the lane of the {@link NotificationPriority} of the payload.
+     * Deliveries the lane rejects are dead-lettered.
+     */
+    @Override
+    public CompletableFuture<Void> publishBookingToAvailableTaxis(BookingNotification booking, List<Long> availableTaxisIDs) {
+        if (availableTaxisIDs.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        NotificationPriority priority = NotificationPriority.of(booking);
+        Long bookingId = revokeIfFinal(booking, priority);
+        DeliveryBatch batch = new DeliveryBatch(availableTaxisIDs.size());
+        Message<?>[] messages = new Message<?>[PayloadFormat.values().length];
+        for (Long taxiId : availableTaxisIDs) {
+            PayloadFormat format = taxiSessionRegistry.getFormat(taxiId);
+            if (messages[format.ordinal()] == null) {
+                messages[format.ordinal()] = toMessage(booking, format);
+            }
+            Message<?> message = messages[format.ordinal()];
+            submit(new Delivery(message, bookingId, taxiId, taxiEndpoint(taxiId), priority, 1, batch));
+        }
+        return batch.getCompletion();
+    }
+
+    @Override
+    public void notifyTaxi(Message<?> message, Long taxiId) {
+        deliver(new Delivery(message, bookingIdOf(message), taxiId, taxiEndpoint(taxiId), NotificationPriority.UPDATE, 1,
+                new DeliveryBatch(1)));
+    }
+
+    /**
+     * Publishes the booking once to a region topic per payload format in use; the broker delivers it
+     * to every taxi subscribed to the region in that format.
+     */
+    @Override
+    public CompletableFuture<Void> publishBookingToRegion(BookingNotification booking, String regionTopic) {
+        NotificationPriority priority = NotificationPriority.of(booking);
+        Long bookingId = revokeIfFinal(booking, priority);
+        List<PayloadFormat> formats = new ArrayList<>(PayloadFormat.values().length);
+        for (PayloadFormat format : PayloadFormat.values()) {
+            if (taxiSessionRegistry.isInUse(format)) {
+                formats.add(format);
+            }
+        }
+        DeliveryBatch batch = new DeliveryBatch(formats.size());
+        for (PayloadFormat format : formats) {
+            Message<?> message = toMessage(booking, format);
+            submit(new Delivery(message, bookingId, null, regionTopic + format.getTopicSuffix(), priority, 1, batch));
+        }
+        return batch.getCompletion();
     }
 
     @Override
-    public void publishBookingToAvailableTaxis(BookingDTO booking, List<Long> availableTaxisIDs) {
-        availableTaxisIDs.parallelStream().forEach(taxiId -> notificationService.notifyTaxi(booking, taxiId));
+    public void notifyTaxi(Long taxiId, String destination, Object payload) {
+        Message<?> message = toMessage(payload, taxiSessionRegistry.getFormat(taxiId));
+        NotificationPriority priority = payload instanceof BookingNotification booking ? NotificationPriority.of(booking) : NotificationPriority.UPDATE;
+        submit(new Delivery(message, bookingIdOf(payload), taxiId, destination, priority, 1, new DeliveryBatch(1)));
     }
 
-    @Retryable(
-            retryFor = {MessagingException.class},
-            backoff = @Backoff(delay = 2000)
-    )
     @Override
-    public void notifyTaxi(BookingDTO booking, Long taxiId) {
-        String taxiEndpoint = String.format(TAXI_ENDPOINT_TEMPLATE, taxiId);
+    public List<DeadLetterDTO> getDeadLetters() {
+        return deadLetterMapper.map(deadLetterStore.findAll());
+    }
+
+    /**
+     * Releases the offer of a booking whose revocation is being queued, so that offers of the booking still waiting
+     * in a slower lane or on the retry wheel are dropped instead of reaching a taxi after the revocation.
+     *
+     * @return the ID of the booking
+     */
+    private Long revokeIfFinal(BookingNotification booking, NotificationPriority priority) {
+        Long bookingId = booking.getBookingId();
+        if (bookingId != null && priority == NotificationPriority.REVOCATION) {
+            offerRegistry.release(bookingId);
+        }
+        return bookingId;
+    }
+
+    private void submit(Delivery delivery) {
+        if (!notificationExecutor.execute(delivery.getPriority(), () -> deliver(delivery))) {
+            // the rejected attempt was never made
+            deadLetter(delivery, delivery.getAttempt() - 1, "Rejected by the full " + delivery.getPriority() + " lane");
+            delivery.getBatch().done(false);
+        }
+    }
+
+    /**
+     * Sends an offer under the read lock of the stripe of its booking, unless the booking was revoked meanwhile.
+     * Revocations are sent under the write lock, so an offer that passed the check is sent before the revocation
+     * and never after it. Updates are always sent: after a revocation they are changes of the booking for its
+     * assigned taxi.
+     */
+    private void deliver(Delivery delivery) {
+        Long bookingId = delivery.getBookingId();
+        NotificationPriority priority = delivery.getPriority();
+        if (bookingId == null || priority == NotificationPriority.UPDATE) {
+            send(delivery);
+            return;
+        }
+        boolean revocation = priority == NotificationPriority.REVOCATION;
+        ReadWriteLock stripe = bookingLocks[Long.hashCode(bookingId) & (BOOKING_LOCK_STRIPES - 1)];
+        Lock lock = revocation ? stripe.writeLock() : stripe.readLock();
+        lock.lock();
         try {
-            log.info(taxiEndpoint);
-            messagingTemplate.convertAndSend(taxiEndpoint, booking);
+            if (!revocation && offerRegistry.isReleased(bookingId)) {
+                log.debug("Dropping offer of revoked booking {} to {}", bookingId, delivery.getDestination());
+                delivery.getBatch().done(true);
+                return;
+            }
+            send(delivery);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the message once. A failed send is put on the retry wheel with exponential backoff,
+     * and dead-lettered once all attempts are used up. No thread waits for the backoff. Retries keep their lane.
+     */
+    private void send(Delivery delivery) {
+        try {
+            messagingTemplate.send(delivery.getDestination(), delivery.getMessage());
+            delivery.getBatch().done(true);
         } catch (MessagingException e) {
-            log.warn("Failed to send booking notification to taxi with ID {}. Retrying...", taxiId);
-            throw e;
+            int attempt = delivery.getAttempt();
+            if (attempt >= retryProperties.getMaxAttempts()) {
+                log.error("Failed to send notification to {} after {} attempts", delivery.getDestination(), attempt, e);
+                deadLetter(delivery, attempt, e.getMessage());
+                delivery.getBatch().done(false);
+                return;
+            }
+            long delayMs = retryBackoff.delayMs(attempt);
+            log.warn("Failed to send notification to {}. Retrying in {} ms...", delivery.getDestination(), delayMs);
+            retryWheel.schedule(() -> submit(delivery.nextAttempt()), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void deadLetter(Delivery delivery, int attempts, String error) {
+        deadLetterStore.add(new DeadLetter(delivery.getTaxiId(), delivery.getDestination(), payloadOf(delivery.getMessage()),
+                attempts, error, Instant.now()));
+    }
+
+    /**
+     * Converts the payload with the converter of the format, as {@code convertAndSend} would, and freezes the headers.
+     * An immutable message makes the template copy the headers when setting the destination instead of
+     * mutating them, so the message can be sent to many destinations concurrently.
+     * Messages about a booking carry its ID in the {@link #BOOKING_ID_HEADER} header.
+     */
+    private Message<?> toMessage(Object payload, PayloadFormat format) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setLeaveMutable(true);
+        Long bookingId = bookingIdOf(payload);
+        if (bookingId != null) {
+            accessor.setNativeHeader(BOOKING_ID_HEADER, bookingId.toString());
+        }
+        Message<?> message = messageConverters.get(format).toMessage(payload, accessor.getMessageHeaders());
+        if (message == null) {
+            throw new IllegalStateException("No message converter for " + payload.getClass().getName());
         }
+        MessageHeaderAccessor messageAccessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
+        if (messageAccessor != null) {
+            messageAccessor.setImmutable();
+        }
+        return message;
+    }
+
+    private String taxiEndpoint(Long taxiId) {
+        return taxiEndpoints.computeIfAbsent(taxiId, id -> TAXI_ENDPOINT_PREFIX + id);
+    }
+
+    private static Long bookingIdOf(Object payload) {
+        return payload instanceof BookingNotification booking ? booking.getBookingId() : null;
+    }
+
+    private static Long bookingIdOf(Message<?> message) {
+        String bookingId = NativeMessageHeaderAccessor.getFirstNativeHeader(BOOKING_ID_HEADER, message.getHeaders());
+        return bookingId != null ? Long.valueOf(bookingId) : null;
     }
 
-    @Recover
-    public void recover(MessagingException e, BookingDTO booking, Long taxiId) {
-        log.error("Failed to send booking notification to taxi with ID {} after retries", taxiId, e);
-        // todo: implement fallback logic
+    /**
+     * Payload as text for the dead-letter store: JSON as is, binary formats Base64-encoded.
+     */
+    private static String payloadOf(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] bytes)) {
+            return String.valueOf(message.getPayload());
+        }
+        MimeType contentType = new MessageHeaderAccessor(message).getContentType();
+        boolean binary = contentType != null && PayloadFormat.CBOR.getMimeType().equalsTypeAndSubtype(contentType);
+        return binary ? Base64.getEncoder().encodeToString(bytes) : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One attempt to send a message to a destination. The booking ID is set for messages about a booking.
+     */
+    @Value
+    private static class Delivery {
+        Message<?> message;
+        Long bookingId;
+        Long taxiId;
+        String destination;
+        NotificationPriority priority;
+        int attempt;
+        DeliveryBatch batch;
+
+        Delivery nextAttempt() {
+            return new Delivery(message, bookingId, taxiId, destination, priority, attempt + 1, batch);
+        }
+    }
+
+    /**
+     * Tracks the deliveries of one publication. Its completion completes once each of them was sent or dropped
+     * as stale, and fails if any of them was dead-lettered.
+     */
+    private static class DeliveryBatch {
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private final AtomicInteger remaining;
+        private volatile boolean failed;
+
+        private DeliveryBatch(int size) {
+            this.remaining = new AtomicInteger(size);
+            if (size == 0) {
+                completion.complete(null);
+            }
+        }
+
+        private CompletableFuture<Void> getCompletion() {
+            return completion;
+        }
+
+        private void done(boolean delivered) {
+            if (!delivered) {
+                failed = true;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                if (failed) {
+                    completion.completeExceptionally(new IllegalStateException("Some deliveries were dead-lettered"));
+                } else {
+                    completion.complete(null);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,55 @@
+package com.jetcab.service.notification;
+
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Encoding of the payloads sent to a taxi device, chosen by the device with the {@value #HEADER} header
+ * of its STOMP CONNECT frame. Devices that do not send the header get JSON, and so do devices connected
+ * over SockJS, which carries text frames only; binary formats need the plain WebSocket endpoint.
+ */
+public enum PayloadFormat {
+    JSON(MimeTypeUtils.APPLICATION_JSON, ""),
+    /**
+     * Binary JSON (RFC 8949), typically a third smaller than JSON and cheaper to encode. Sent as
+     * {@code application/octet-stream}, the content type the STOMP handler writes as a binary WebSocket frame.
+     */
+    CBOR(MimeTypeUtils.APPLICATION_OCTET_STREAM, ".cbor");
+
+    public static final String HEADER = "payload-format";
+
+    /**
+     * WebSocket session attribute set for sessions that can receive binary frames.
+     */
+    public static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+
+    private final MimeType mimeType;
+    private final String topicSuffix;
+
+    PayloadFormat(MimeType mimeType, String topicSuffix) {
+        this.mimeType = mimeType;
+        this.topicSuffix = topicSuffix;
+    }
+
+    public MimeType getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Appended to shared topics, which carry one encoding per topic.
+     */
+    public String getTopicSuffix() {
+        return topicSuffix;
+    }
+
+    public static PayloadFormat fromHeader(String value) {
+        return value != null && value.equalsIgnoreCase(CBOR.name()) ? CBOR : JSON;
+    }
+
+    /**
+     * Whether the format needs binary WebSocket frames.
+     */
+    public boolean isBinary() {
+        return this != JSON;
+    }
+}
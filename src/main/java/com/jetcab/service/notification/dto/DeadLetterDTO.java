@@ -0,0 +1,22 @@
+package com.jetcab.service.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterDTO implements Serializable {
+    private Long taxiId;
+    private String destination;
+    private String payload;
+    private int attempts;
+    private String error;
+    private Instant failedAt;
+}
@@ -0,0 +1,22 @@
+package com.jetcab.service.notification.mapper;
+
+import com.jetcab.common.BaseModelMapper;
+import com.jetcab.service.notification.dto.DeadLetterDTO;
+import com.jetcab.service.notification.retry.DeadLetter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DeadLetterMapper extends BaseModelMapper<DeadLetter, DeadLetterDTO> {
+
+    @Override
+    public DeadLetterDTO map(DeadLetter deadLetter) {
+        return DeadLetterDTO.builder()
+                .taxiId(deadLetter.getTaxiId())
+                .destination(deadLetter.getDestination())
+                .payload(deadLetter.getPayload())
+                .attempts(deadLetter.getAttempts())
+                .error(deadLetter.getError())
+                .failedAt(deadLetter.getFailedAt())
+                .build();
+    }
+}
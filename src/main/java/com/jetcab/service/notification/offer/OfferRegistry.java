@@ -0,0 +1,138 @@
+package com.jetcab.service.notification.offer;
+
+import com.jetcab.common.collection.LongHashSet;
+import com.jetcab.service.notification.NotificationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers per booking the taxis it was offered to, so that changes and the final revocation of the offer
+ * reach exactly those taxis. Each booking keeps a primitive {@link LongHashSet} until it is released.
+ * <p>
+ * A released booking leaves a tombstone for the configured retention, so that a change of the booking handled
+ * after its release, e.g. by an asynchronous listener running out of order, cannot record a new offer.
+ */
+@Component
+public class OfferRegistry {
+
+    private final Map<Long, LongHashSet> offers = new ConcurrentHashMap<>();
+    private final Map<Long, Long> releasedAt = new ConcurrentHashMap<>();
+    private final long releasedRetentionNanos;
+
+    public OfferRegistry(NotificationProperties properties) {
+        this.releasedRetentionNanos = TimeUnit.MILLISECONDS.toNanos(properties.getOffer().getReleasedRetentionMs());
+    }
+
+    /**
+     * Records the offer of the booking to the given taxis.
+     *
+     * @return the taxis that did not have the offer yet, in the given order
+     */
+    public List<Long> record(Long bookingId, Collection<Long> taxiIds) {
+        return record(bookingId, taxiIds, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records the offer of the booking to at most {@code limit} of the given taxis that did not have it yet.
+     * Nothing is recorded for a released booking.
+     *
+     * @return the newly offered taxis, in the given order
+     */
+    public List<Long> record(Long bookingId, Collection<Long> taxiIds, int limit) {
+        List<Long> added = new ArrayList<>(Math.min(taxiIds.size(), limit));
+        if (taxiIds.isEmpty() || limit <= 0 || isReleased(bookingId)) {
+            return added;
+        }
+        LongHashSet offered = offers.computeIfAbsent(bookingId, id -> new LongHashSet(taxiIds.size()));
+        synchronized (offered) {
+            // the tombstone is written before the set is removed, so a set released meanwhile is detected here
+            if (isReleased(bookingId)) {
+                offers.remove(bookingId, offered);
+                return added;
+            }
+            for (Long taxiId : taxiIds) {
+                if (added.size() == limit) {
+                    break;
+                }
+                if (offered.add(taxiId)) {
+                    added.add(taxiId);
+                }
+            }
+        }
+        return added;
+    }
+
+    public List<Long> getOffered(Long bookingId) {
+        LongHashSet offered = offers.get(bookingId);
+        if (offered == null) {
+            return List.of();
+        }
+        synchronized (offered) {
+            return toList(offered);
+        }
+    }
+
+    public int offeredCount(Long bookingId) {
+        LongHashSet offered = offers.get(bookingId);
+        if (offered == null) {
+            return 0;
+        }
+        synchronized (offered) {
+            return offered.size();
+        }
+    }
+
+    /**
+     * Forgets the offer of the booking and remembers that it was released.
+     *
+     * @return the taxis the booking was offered to
+     */
+    public List<Long> release(Long bookingId) {
+        releasedAt.put(bookingId, System.nanoTime());
+        LongHashSet offered = offers.remove(bookingId);
+        if (offered == null) {
+            return List.of();
+        }
+        synchronized (offered) {
+            return toList(offered);
+        }
+    }
+
+    public boolean isReleased(Long bookingId) {
+        return releasedAt.containsKey(bookingId);
+    }
+
+    public int size() {
+        return offers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jetcab.notification.offer.released-retention-ms:300000}")
+    public void evictReleasedPeriodically() {
+        evictReleased();
+    }
+
+    /**
+     * Drops the tombstones of bookings released longer than the retention ago.
+     *
+     * @return the number of dropped tombstones
+     */
+    public int evictReleased() {
+        long now = System.nanoTime();
+        int before = releasedAt.size();
+        releasedAt.values().removeIf(released -> now - released > releasedRetentionNanos);
+        return before - releasedAt.size();
+    }
+
+    private static List<Long> toList(LongHashSet set) {
+        List<Long> ids = new ArrayList<>(set.size());
+        set.forEach(ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,165 @@
+package com.jetcab.service.notification.outbound;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session whose outbound messages are queued and written by a drain task on the outbound executor, so that the
+ * broker thread sending to a slow device never waits for it. Messages about the same booking are conflated:
+ * a queued message is replaced in place by the newer one. Messages that do not fit into the full queue are dropped,
+ * and a session that stays saturated longer than the saturation timeout is closed.
+ */
+@Slf4j
+public class ConflatingWebSocketSession extends WebSocketSessionDecorator {
+
+    private final Executor executor;
+    private final int capacity;
+    private final long saturationTimeoutNanos;
+    private final OutboundSessionMetrics metrics;
+
+    private final Map<Object, WebSocketMessage<?>> queue = new LinkedHashMap<>();
+    private boolean draining;
+    private boolean closed;
+    private long saturatedSince;
+    private long sendStartedAt;
+
+    public ConflatingWebSocketSession(WebSocketSession delegate, Executor executor, int capacity, long saturationTimeoutMs,
+                                      OutboundSessionMetrics metrics) {
+        super(delegate);
+        this.executor = executor;
+        this.capacity = capacity;
+        this.saturationTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(saturationTimeoutMs);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues the message without blocking.
+     *
+     * @throws SessionLimitExceededException if the session has been saturated for longer than the saturation timeout,
+     *                                       which makes the STOMP handler close the session
+     */
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        Long bookingId = StompFrames.bookingId(message);
+        Object key = bookingId != null ? bookingId : new Object();
+        long now = System.nanoTime();
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            if (bookingId != null && queue.replace(key, message) != null) {
+                metrics.conflated();
+                return;
+            }
+            if (isSaturated(now)) {
+                metrics.dropped();
+                if (now - saturatedSince > saturationTimeoutNanos) {
+                    closed = true;
+                    queue.clear();
+                    metrics.disconnected();
+                    throw new SessionLimitExceededException("Outbound queue of session " + getId() + " stayed saturated",
+                            CloseStatus.SESSION_NOT_RELIABLE);
+                }
+                return;
+            }
+            saturatedSince = 0;
+            queue.put(key, message);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (queue) {
+                draining = false;
+            }
+            log.warn("Outbound executor rejected the drain of session {}", getId());
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (queue) {
+            closed = true;
+            queue.clear();
+        }
+        super.close(status);
+    }
+
+    public int queueSize() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * The queue is saturated when it is full, or when a write has been stuck for longer than the saturation timeout.
+     * Records the start of the saturation on first detection; a stuck write counts from its start.
+     */
+    private boolean isSaturated(long now) {
+        boolean stuck = sendStartedAt != 0 && now - sendStartedAt > saturationTimeoutNanos;
+        if (!stuck && queue.size() < capacity) {
+            return false;
+        }
+        if (saturatedSince == 0) {
+            saturatedSince = stuck ? sendStartedAt : now;
+        }
+        return true;
+    }
+
+    /**
+     * Closes the underlying session after a failed write, so that the disconnect cleanup of the STOMP handler runs
+     * instead of the taxi staying connected with every later frame dropped.
+     */
+    private void closeDelegate() {
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to close session {} after a failed write", getId(), e);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> message;
+            synchronized (queue) {
+                Iterator<WebSocketMessage<?>> iterator = queue.values().iterator();
+                if (closed || !iterator.hasNext()) {
+                    draining = false;
+                    sendStartedAt = 0;
+                    return;
+                }
+                message = iterator.next();
+                iterator.remove();
+                sendStartedAt = System.nanoTime();
+            }
+            try {
+                getDelegate().sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to write to session {}, discarding its queue", getId(), e);
+                synchronized (queue) {
+                    closed = true;
+                    queue.clear();
+                    draining = false;
+                    sendStartedAt = 0;
+                }
+                closeDelegate();
+                return;
+            }
+        }
+    }
+}
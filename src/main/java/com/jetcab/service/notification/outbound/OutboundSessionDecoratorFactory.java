@@ -0,0 +1,47 @@
+package com.jetcab.service.notification.outbound;
+
+import com.jetcab.service.notification.NotificationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.concurrent.Executor;
+
+import static com.jetcab.configuration.NotificationExecutorConfiguration.WEBSOCKET_OUTBOUND_EXECUTOR;
+
+/**
+ * Gives every WebSocket session its own {@link ConflatingWebSocketSession} before the STOMP handler sees it,
+ * so that frames sent by the broker are queued per session instead of being written on the broker threads.
+ */
+@Component
+public class OutboundSessionDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    private final Executor executor;
+    private final NotificationProperties.SessionQueue properties;
+    private final OutboundSessionMetrics metrics;
+
+    public OutboundSessionDecoratorFactory(@Qualifier(WEBSOCKET_OUTBOUND_EXECUTOR) Executor executor,
+                                           NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.properties = properties.getSessionQueue();
+        this.metrics = new OutboundSessionMetrics(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(decorateSession(session));
+            }
+        };
+    }
+
+    ConflatingWebSocketSession decorateSession(WebSocketSession session) {
+        return new ConflatingWebSocketSession(session, executor, properties.getCapacity(), properties.getSaturationTimeoutMs(), metrics);
+    }
+}
@@ -0,0 +1,38 @@
+package com.jetcab.service.notification.outbound;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counters of the per-session outbound queues.
+ */
+public class OutboundSessionMetrics {
+
+    private final Counter conflated;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    public OutboundSessionMetrics(MeterRegistry meterRegistry) {
+        this.conflated = Counter.builder("jetcab.websocket.outbound.conflated")
+                .description("Queued messages replaced by a newer message about the same booking")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("jetcab.websocket.outbound.dropped")
+                .description("Messages dropped because the outbound queue of the session was saturated")
+                .register(meterRegistry);
+        this.disconnected = Counter.builder("jetcab.websocket.outbound.disconnected")
+                .description("Sessions closed because their outbound queue stayed saturated")
+                .register(meterRegistry);
+    }
+
+    void conflated() {
+        conflated.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void disconnected() {
+        disconnected.increment();
+    }
+}
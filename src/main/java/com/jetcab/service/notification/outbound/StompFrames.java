@@ -0,0 +1,52 @@
+package com.jetcab.service.notification.outbound;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static com.jetcab.service.notification.NotificationService.BOOKING_ID_HEADER;
+
+/**
+ * Reads headers of encoded outbound STOMP frames without decoding the whole frame.
+ */
+final class StompFrames {
+
+    private static final String BOOKING_ID_LINE = "\n" + BOOKING_ID_HEADER + ":";
+    private static final int MAX_HEADERS_LENGTH = 1024;
+
+    private StompFrames() {
+    }
+
+    /**
+     * @return the booking ID header of the frame, or {@code null} if the frame has none
+     */
+    static Long bookingId(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return bookingId(text.getPayload());
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] headers = new byte[Math.min(payload.remaining(), MAX_HEADERS_LENGTH)];
+            payload.get(headers);
+            return bookingId(new String(headers, StandardCharsets.ISO_8859_1));
+        }
+        return null;
+    }
+
+    static Long bookingId(String frame) {
+        int headersEnd = frame.indexOf("\n\n");
+        int start = frame.lastIndexOf(BOOKING_ID_LINE, headersEnd >= 0 ? headersEnd : frame.length());
+        if (start < 0) {
+            return null;
+        }
+        start += BOOKING_ID_LINE.length();
+        int end = start;
+        while (end < frame.length() && Character.isDigit(frame.charAt(end))) {
+            end++;
+        }
+        return end > start ? Long.valueOf(frame.substring(start, end)) : null;
+    }
+}
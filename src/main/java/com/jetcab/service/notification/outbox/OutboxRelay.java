@@ -0,0 +1,117 @@
+package com.jetcab.service.notification.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jetcab.persistence.OutboxRepository;
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+import com.jetcab.service.dispatch.DispatchService;
+import com.jetcab.service.notification.NotificationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Polls the outbox and dispatches the committed booking changes in batches.
+ * <p>
+ * Each poll claims a batch under a fresh token and dispatches it. A row is deleted, in bulk with others, by the
+ * first poll after all notifications of its change were delivered. Rows whose change failed to dispatch or had
+ * a delivery dead-lettered, and rows of a relay that stopped before their deliveries completed, stay claimed and
+ * are claimed again once their claim expires, so every change is delivered at least once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jetcab.notification.delivery", havingValue = "OUTBOX", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final NotificationProperties.Outbox properties;
+    private final OutboxRepository outboxRepository;
+    private final DispatchService dispatchService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Queue<Long> deliveredIds = new ConcurrentLinkedQueue<>();
+
+    public OutboxRelay(NotificationProperties properties, OutboxRepository outboxRepository, DispatchService dispatchService,
+                       ObjectMapper objectMapper, TransactionTemplate transactionTemplate) {
+        this.properties = properties.getOutbox();
+        this.outboxRepository = outboxRepository;
+        this.dispatchService = dispatchService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${jetcab.notification.outbox.poll-interval-ms:200}")
+    public void relayPeriodically() {
+        int relayed;
+        do {
+            relayed = relay();
+        } while (relayed == properties.getBatchSize());
+    }
+
+    /**
+     * Claims and dispatches one batch of outbox rows, then deletes the rows delivered so far.
+     *
+     * @return the number of claimed rows
+     */
+    public int relay() {
+        try {
+            return dispatchClaimed();
+        } finally {
+            deleteDelivered();
+        }
+    }
+
+    private int dispatchClaimed() {
+        String claimToken = UUID.randomUUID().toString();
+        ZonedDateTime now = ZonedDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> outboxRepository.claim(claimToken, now,
+                now.minusNanos(properties.getClaimTimeoutMs() * 1_000_000), properties.getBatchSize()));
+        if (claimed == null || claimed == 0) {
+            return 0;
+        }
+
+        List<OutboxMessage> messages = outboxRepository.findAllByClaimedByOrderById(claimToken);
+        int dispatched = 0;
+        for (OutboxMessage message : messages) {
+            try {
+                BookingDeltaDTO delta = message.getDelta() != null ? objectMapper.readValue(message.getDelta(), BookingDeltaDTO.class) : null;
+                dispatchService.publishBooking(objectMapper.readValue(message.getPayload(), BookingDTO.class), delta)
+                        .whenComplete((ignored, failure) -> onDelivered(message, failure));
+                dispatched++;
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.error("Failed to relay outbox message {} of booking with ID {}", message.getId(), message.getBookingId(), e);
+            }
+        }
+        log.debug("Dispatched {} of {} claimed outbox messages", dispatched, messages.size());
+        return claimed;
+    }
+
+    private void onDelivered(OutboxMessage message, Throwable failure) {
+        if (failure == null) {
+            deliveredIds.add(message.getId());
+        } else {
+            log.warn("Outbox message {} of booking with ID {} was not fully delivered, relaying it again once its claim expires",
+                    message.getId(), message.getBookingId());
+        }
+    }
+
+    private void deleteDelivered() {
+        List<Long> ids = new ArrayList<>();
+        for (Long id = deliveredIds.poll(); id != null; id = deliveredIds.poll()) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllByIdInBatch(ids));
+        }
+    }
+}
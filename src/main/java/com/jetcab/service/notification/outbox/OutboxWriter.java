@@ -0,0 +1,47 @@
+package com.jetcab.service.notification.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jetcab.persistence.OutboxRepository;
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.event.BookingChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZonedDateTime;
+
+import static org.springframework.transaction.event.TransactionPhase.BEFORE_COMMIT;
+
+/**
+ * Writes booking changes to the outbox within the changing transaction, so that they are committed
+ * or rolled back together with the booking.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jetcab.notification.delivery", havingValue = "OUTBOX", matchIfMissing = true)
+public class OutboxWriter {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @TransactionalEventListener(phase = BEFORE_COMMIT)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingDTO booking = event.getBooking();
+        OutboxMessage message = new OutboxMessage();
+        message.setBookingId(booking.getId());
+        message.setPayload(serialize(booking));
+        message.setDelta(event.getDelta() != null ? serialize(event.getDelta()) : null);
+        message.setCreatedAt(ZonedDateTime.now());
+        outboxRepository.save(message);
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + value, e);
+        }
+    }
+}
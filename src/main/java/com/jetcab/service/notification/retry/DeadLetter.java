@@ -0,0 +1,15 @@
+package com.jetcab.service.notification.retry;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class DeadLetter {
+    Long taxiId;
+    String destination;
+    String payload;
+    int attempts;
+    String error;
+    Instant failedAt;
+}
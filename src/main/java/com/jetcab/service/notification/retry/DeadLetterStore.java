@@ -0,0 +1,51 @@
+package com.jetcab.service.notification.retry;
+
+import com.jetcab.service.notification.NotificationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded in-memory store of notifications that could not be delivered after all retries.
+ */
+@Component
+public class DeadLetterStore {
+
+    private final int capacity;
+    private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+
+    public DeadLetterStore(NotificationProperties properties) {
+        this.capacity = properties.getRetry().getDeadLetterCapacity();
+    }
+
+    public synchronized void add(DeadLetter deadLetter) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (deadLetters.size() == capacity) {
+            deadLetters.pollFirst();
+        }
+        deadLetters.addLast(deadLetter);
+    }
+
+    /**
+     * Dead letters from the newest to the oldest.
+     */
+    public synchronized List<DeadLetter> findAll() {
+        List<DeadLetter> newestFirst = new ArrayList<>(deadLetters);
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    public synchronized int size() {
+        return deadLetters.size();
+    }
+
+    public synchronized void clear() {
+        deadLetters.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package com.jetcab.service.notification.retry;
+
+import com.jetcab.service.notification.NotificationProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with symmetric random jitter.
+ */
+public class RetryBackoff {
+
+    private final NotificationProperties.Retry properties;
+
+    public RetryBackoff(NotificationProperties.Retry properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Delay in milliseconds before the given retry, counting retries from 1.
+     */
+    public long delayMs(int retry) {
+        double delay = properties.getInitialBackoffMs() * Math.pow(properties.getMultiplier(), retry - 1);
+        delay = Math.min(delay, properties.getMaxBackoffMs());
+        double jitter = properties.getJitter() * delay;
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        }
+        return Math.max(0, Math.round(delay));
+    }
+}
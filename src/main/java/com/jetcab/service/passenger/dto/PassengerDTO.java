@@ -2,10 +2,12 @@ package com.jetcab.service.passenger.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class PassengerDTO implements Serializable {
     private String name;
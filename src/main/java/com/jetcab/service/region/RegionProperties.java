@@ -0,0 +1,20 @@
+package com.jetcab.service.region;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.region")
+public class RegionProperties {
+
+    /**
+     * Edge length of a region, in kilometers. Every region has its own booking topic.
+     */
+    private double cellSizeKm = 10.0;
+
+    /**
+     * Number of rings of neighbouring regions a taxi subscribes to around its own, so that bookings
+     * just across a region border still reach it. Zero subscribes to the own region only.
+     */
+    private int ring = 1;
+}
@@ -0,0 +1,15 @@
+package com.jetcab.service.region;
+
+import com.jetcab.service.region.dto.RegionAssignmentDTO;
+
+public interface RegionService {
+
+    String REGION_TOPIC_PREFIX = "/topic/regions/";
+    String REGION_ASSIGNMENT_SUFFIX = "/regions";
+
+    String getTopic(double latitude, double longitude);
+
+    RegionAssignmentDTO getAssignment(Long taxiId);
+
+    void track(Long taxiId, double latitude, double longitude);
+}
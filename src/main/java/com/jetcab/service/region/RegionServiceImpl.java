@@ -0,0 +1,101 @@
+package com.jetcab.service.region;
+
+import com.jetcab.common.geo.GeoGrid;
+import com.jetcab.persistence.TaxiRepository;
+import com.jetcab.service.dispatch.DispatchProperties;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.region.dto.RegionAssignmentDTO;
+import com.jetcab.service.taxi.model.Taxi;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jetcab.service.dispatch.FanOutMode.REGION;
+import static com.jetcab.service.notification.NotificationService.TAXI_ENDPOINT_PREFIX;
+
+/**
+ * Splits the map into square regions with one booking topic each. A booking is published once to the topic
+ * of its pickup region, and taxis subscribe to the topics of their own and the neighbouring regions,
+ * filtering the offers on the device. Taxis are told which topics to subscribe to whenever they cross a region border.
+ * Every region topic has a variant per payload format, and taxis are assigned the variant of their format.
+ */
+@Service
+public class RegionServiceImpl implements RegionService {
+
+    private final DispatchProperties dispatchProperties;
+    private final TaxiRepository taxiRepository;
+    private final NotificationService notificationService;
+    private final TaxiSessionRegistry taxiSessionRegistry;
+    private final GeoGrid grid;
+    private final int ring;
+
+    private final Map<Long, Long> regionsByTaxiId = new ConcurrentHashMap<>();
+
+    public RegionServiceImpl(RegionProperties properties, DispatchProperties dispatchProperties,
+                             TaxiRepository taxiRepository, NotificationService notificationService,
+                             TaxiSessionRegistry taxiSessionRegistry) {
+        this.dispatchProperties = dispatchProperties;
+        this.taxiRepository = taxiRepository;
+        this.notificationService = notificationService;
+        this.taxiSessionRegistry = taxiSessionRegistry;
+        this.grid = new GeoGrid(properties.getCellSizeKm());
+        this.ring = properties.getRing();
+    }
+
+    @Override
+    public String getTopic(double latitude, double longitude) {
+        return topicOf(grid.row(latitude), grid.column(longitude));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RegionAssignmentDTO getAssignment(Long taxiId) {
+        Taxi taxi = taxiRepository.findTaxiById(taxiId);
+        if (taxi.getLatitude() == null || taxi.getLongitude() == null) {
+            return RegionAssignmentDTO.builder().taxiId(taxiId).topics(List.of()).build();
+        }
+        return assignment(taxiId, grid.cellKey(taxi.getLatitude(), taxi.getLongitude()));
+    }
+
+    /**
+     * Records the region of a taxi that moved, and sends it a new assignment when it entered another region.
+     * Does nothing unless bookings are published to regions.
+     */
+    @Override
+    public void track(Long taxiId, double latitude, double longitude) {
+        if (dispatchProperties.getFanOutMode() != REGION) {
+            return;
+        }
+        long cellKey = grid.cellKey(latitude, longitude);
+        Long previous = regionsByTaxiId.put(taxiId, cellKey);
+        if (previous == null || previous != cellKey) {
+            notificationService.notifyTaxi(taxiId, TAXI_ENDPOINT_PREFIX + taxiId + REGION_ASSIGNMENT_SUFFIX, assignment(taxiId, cellKey));
+        }
+    }
+
+    private RegionAssignmentDTO assignment(Long taxiId, long cellKey) {
+        String suffix = taxiSessionRegistry.getFormat(taxiId).getTopicSuffix();
+        int row = GeoGrid.rowOf(cellKey);
+        int column = GeoGrid.columnOf(cellKey);
+        List<String> topics = new ArrayList<>((2 * ring + 1) * (2 * ring + 1));
+        for (int r = row - ring; r <= row + ring; r++) {
+            for (int c = column - ring; c <= column + ring; c++) {
+                topics.add(topicOf(r, c) + suffix);
+            }
+        }
+        return RegionAssignmentDTO.builder()
+                .taxiId(taxiId)
+                .region(topicOf(row, column))
+                .topics(topics)
+                .build();
+    }
+
+    private static String topicOf(int row, int column) {
+        return REGION_TOPIC_PREFIX + row + "_" + column;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jetcab.service.region.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegionAssignmentDTO implements Serializable {
+    private Long taxiId;
+    private String region;
+    private List<String> topics;
+}
@@ -0,0 +1,30 @@
+package com.jetcab.service.taxi;
+
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges of the taxis that can currently receive bookings.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaxiMetrics implements MeterBinder {
+
+    private final TaxiSpatialIndex taxiSpatialIndex;
+    private final TaxiSessionRegistry taxiSessionRegistry;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jetcab.taxis.available", taxiSpatialIndex, TaxiSpatialIndex::availableCount)
+                .description("Available taxis, with or without a known location")
+                .register(registry);
+        Gauge.builder("jetcab.taxis.connected", taxiSessionRegistry, TaxiSessionRegistry::connectedCount)
+                .description("Taxis subscribed to their booking destination")
+                .register(registry);
+    }
+}
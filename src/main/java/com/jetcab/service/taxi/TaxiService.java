@@ -3,12 +3,15 @@ package com.jetcab.service.taxi;
 import com.jetcab.common.PageableList;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
 import com.jetcab.service.taxi.dto.ModifyTaxiDTO;
+import com.jetcab.service.taxi.dto.NearbyTaxiDTO;
 import com.jetcab.service.taxi.dto.TaxiDTO;
 import com.jetcab.service.taxi.model.Taxi;
 import com.jetcab.service.taxi.model.TaxiStatus;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TaxiService {
 
@@ -18,15 +21,36 @@ public interface TaxiService {
 
     Taxi findById(Long id);
 
+    List<Taxi> findAllById(Collection<Long> ids);
+
+    /**
+     * Loads the taxis and locks their rows until the end of the transaction, in ID order.
+     */
+    List<Taxi> findAllByIdForUpdate(Collection<Long> ids);
+
     TaxiDTO createTaxi(ModifyTaxiDTO dto);
 
     TaxiDTO updateStatus(Long id, TaxiStatus status);
 
     void update(Taxi taxi);
 
+    /**
+     * Changes the status of the taxi only if it currently has the expected status, in a single conditional update.
+     * The spatial index follows once the transaction has committed.
+     *
+     * @return the updated taxi, or empty if the taxi does not exist, is deleted or has another status
+     */
+    Optional<Taxi> changeStatus(Long id, TaxiStatus expected, TaxiStatus status);
+
     TaxiDTO updateLocation(Long id, ModifyLocationDTO location);
 
     void deleteTaxi(Long id);
 
     List<Long> getAvailableTaxiIDs();
+
+    List<Long> getAvailableConnectedTaxiIDs();
+
+    List<Long> getAvailableTaxiIDsWithin(double latitude, double longitude, double radiusKm);
+
+    List<NearbyTaxiDTO> findNearestAvailable(double latitude, double longitude, int k, double maxKm);
 }
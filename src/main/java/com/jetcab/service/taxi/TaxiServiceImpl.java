@@ -2,20 +2,33 @@ package com.jetcab.service.taxi;
 
 import com.jetcab.common.PageableList;
 import com.jetcab.persistence.TaxiRepository;
-import com.jetcab.service.location.LocationService;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
+import com.jetcab.service.region.RegionService;
 import com.jetcab.service.taxi.dto.ModifyTaxiDTO;
+import com.jetcab.service.taxi.dto.NearbyTaxiDTO;
 import com.jetcab.service.taxi.dto.TaxiDTO;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import com.jetcab.service.taxi.mapper.NearbyTaxiMapper;
 import com.jetcab.service.taxi.mapper.TaxiMapper;
 import com.jetcab.service.taxi.model.Taxi;
 import com.jetcab.service.taxi.model.TaxiStatus;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import com.jetcab.service.trail.TrailService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
 
@@ -25,8 +38,17 @@ public class TaxiServiceImpl implements TaxiService {
 
     private final TaxiRepository taxiRepository;
     private final TaxiMapper taxiMapper;
+    private final NearbyTaxiMapper nearbyTaxiMapper;
+    private final TaxiSpatialIndex taxiSpatialIndex;
+    private final TaxiSessionRegistry taxiSessionRegistry;
+    private final TrailService trailService;
+    private final RegionService regionService;
 
-    private final LocationService locationService;
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadSpatialIndex() {
+        taxiRepository.findAllByStatusAndDeletedFalse(AVAILABLE).forEach(taxiSpatialIndex::update);
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -48,14 +70,29 @@ public class TaxiServiceImpl implements TaxiService {
         return taxiRepository.findTaxiById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Taxi> findAllById(Collection<Long> ids) {
+        return taxiRepository.findAllById(ids);
+    }
+
+    @Override
+    @Transactional
+    public List<Taxi> findAllByIdForUpdate(Collection<Long> ids) {
+        return taxiRepository.findAllForUpdate(ids);
+    }
+
     @Override
     @Transactional
     public TaxiDTO createTaxi(ModifyTaxiDTO dto) {
         Taxi taxi = new Taxi();
         taxi.setLicensePlate(dto.getLicensePlate());
         taxi.setStatus(taxi.getStatus());
-        taxi.setLocation(locationService.findOrCreate(dto.getLocation()));
+        setPosition(taxi, dto.getLocation());
         Taxi saved = taxiRepository.saveAndFlush(taxi);
+        indexAfterCommit(saved);
+        appendToTrail(saved);
+        regionService.track(saved.getId(), saved.getLatitude(), saved.getLongitude());
         return taxiMapper.map(saved);
     }
 
@@ -65,21 +102,36 @@ public class TaxiServiceImpl implements TaxiService {
         Taxi taxi = taxiRepository.findTaxiById(id);
         taxi.setStatus(status);
         Taxi updated = taxiRepository.saveAndFlush(taxi);
+        indexAfterCommit(updated);
         return taxiMapper.map(updated);
     }
 
     @Override
     @Transactional
     public void update(Taxi taxi) {
-        taxiRepository.save(taxi);
+        indexAfterCommit(taxiRepository.save(taxi));
+    }
+
+    @Override
+    @Transactional
+    public Optional<Taxi> changeStatus(Long id, TaxiStatus expected, TaxiStatus status) {
+        if (taxiRepository.updateStatus(id, expected, status) == 0) {
+            return Optional.empty();
+        }
+        Taxi taxi = taxiRepository.findTaxiById(id);
+        indexAfterCommit(taxi);
+        return Optional.of(taxi);
     }
 
     @Override
     @Transactional
     public TaxiDTO updateLocation(Long id, ModifyLocationDTO location) {
         Taxi taxi = taxiRepository.findTaxiById(id);
-        taxi.setLocation(locationService.findOrCreate(location));
+        setPosition(taxi, location);
         Taxi updated = taxiRepository.saveAndFlush(taxi);
+        indexAfterCommit(updated);
+        appendToTrail(updated);
+        regionService.track(updated.getId(), updated.getLatitude(), updated.getLongitude());
         return taxiMapper.map(updated);
     }
 
@@ -89,6 +141,7 @@ public class TaxiServiceImpl implements TaxiService {
         Taxi taxi = taxiRepository.findTaxiById(id);
         taxi.setDeleted(true);
         taxiRepository.save(taxi);
+        indexAfterCommit(taxi);
     }
 
     @Override
@@ -96,4 +149,65 @@ public class TaxiServiceImpl implements TaxiService {
     public List<Long> getAvailableTaxiIDs() {
         return taxiRepository.findAllByStatus(AVAILABLE);
     }
+
+    /**
+     * Intersects the available taxis with the connected ones, iterating whichever of the two is smaller.
+     * Available taxis without a known location are included, as with {@link #getAvailableTaxiIDs()}.
+     */
+    @Override
+    public List<Long> getAvailableConnectedTaxiIDs() {
+        List<Long> result = new ArrayList<>();
+        if (taxiSessionRegistry.connectedCount() <= taxiSpatialIndex.availableCount()) {
+            taxiSessionRegistry.forEachConnected(taxiId -> {
+                if (taxiSpatialIndex.isAvailable(taxiId)) {
+                    result.add(taxiId);
+                }
+            });
+        } else {
+            taxiSpatialIndex.forEachAvailableId(taxiId -> {
+                if (taxiSessionRegistry.isConnected(taxiId)) {
+                    result.add(taxiId);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> getAvailableTaxiIDsWithin(double latitude, double longitude, double radiusKm) {
+        return taxiSpatialIndex.findWithin(latitude, longitude, radiusKm);
+    }
+
+    @Override
+    public List<NearbyTaxiDTO> findNearestAvailable(double latitude, double longitude, int k, double maxKm) {
+        return nearbyTaxiMapper.map(taxiSpatialIndex.findNearest(latitude, longitude, k, maxKm));
+    }
+
+    private void setPosition(Taxi taxi, ModifyLocationDTO location) {
+        taxi.setLatitude(location.getLatitude());
+        taxi.setLongitude(location.getLongitude());
+        taxi.setLocationUpdatedAt(ZonedDateTime.now());
+    }
+
+    /**
+     * Applies the taxi to the spatial index once the transaction has committed, so that a rollback never leaves
+     * the index out of step with the database, e.g. a taxi whose take failed stays available. The version the
+     * commit gave the taxi lets the index skip a snapshot whose callback runs after that of a newer commit.
+     */
+    private void indexAfterCommit(Taxi taxi) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            taxiSpatialIndex.update(taxi);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                taxiSpatialIndex.update(taxi);
+            }
+        });
+    }
+
+    private void appendToTrail(Taxi taxi) {
+        trailService.append(taxi.getId(), taxi.getLocationUpdatedAt().toInstant(), taxi.getLatitude(), taxi.getLongitude());
+    }
 }
@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.time.ZonedDateTime;
 
 @Data
 @Builder
@@ -18,4 +19,5 @@ public class TaxiDTO implements Serializable {
     private String licensePlate;
     private TaxiStatus status;
     private LocationDTO location;
+    private ZonedDateTime locationUpdatedAt;
 }
@@ -0,0 +1,12 @@
+package com.jetcab.service.taxi.exception;
+
+import com.jetcab.common.exception.ConflictException;
+
+public class TaxiNotAvailableException extends ConflictException {
+
+    public static final String MESSAGE_KEY = "exception.conflict.taxi-not-available";
+
+    public TaxiNotAvailableException() {
+        super(MESSAGE_KEY);
+    }
+}
@@ -0,0 +1,12 @@
+package com.jetcab.service.taxi.index;
+
+import lombok.Value;
+
+@Value
+public class IndexedTaxi {
+    Long id;
+    String licensePlate;
+    double latitude;
+    double longitude;
+    long cellKey;
+}
@@ -0,0 +1,9 @@
+package com.jetcab.service.taxi.index;
+
+import lombok.Value;
+
+@Value
+public class NearbyTaxi {
+    IndexedTaxi taxi;
+    double distanceKm;
+}
@@ -0,0 +1,14 @@
+package com.jetcab.service.taxi.index;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.taxi-index")
+public class TaxiIndexProperties {
+
+    /**
+     * Edge length of a grid cell of the available taxi index, in kilometers.
+     */
+    private double cellSizeKm = 1.0;
+}
@@ -0,0 +1,217 @@
+package com.jetcab.service.taxi.index;
+
+import com.jetcab.common.geo.GeoGrid;
+import com.jetcab.service.taxi.model.Taxi;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+import static com.jetcab.common.geo.GeoUtils.distanceKm;
+import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
+
+/**
+ * In-memory grid index of the positions of available taxis.
+ * Only taxis that are AVAILABLE, not deleted and have a known location are kept in the index. The IDs of all
+ * available taxis, including those without a location yet, are kept apart, for dispatch that ignores positions.
+ * The last applied version of every taxi is remembered, including of taxis removed from the index.
+ */
+@Component
+public class TaxiSpatialIndex {
+
+    private final GeoGrid grid;
+    private final Map<Long, IndexedTaxi> taxis = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Set<Long> availableIds = ConcurrentHashMap.newKeySet();
+
+    public TaxiSpatialIndex(TaxiIndexProperties properties) {
+        this.grid = new GeoGrid(properties.getCellSizeKm());
+    }
+
+    /**
+     * Applies a committed snapshot of the taxi. Snapshots of concurrent transactions may arrive in another order
+     * than they were committed in, so a snapshot older than the version last applied for the taxi is ignored.
+     */
+    public void update(Taxi taxi) {
+        if (taxi.getId() == null) {
+            return;
+        }
+        Long version = taxi.getVersion();
+        versions.compute(taxi.getId(), (id, applied) -> {
+            if (version != null && applied != null && version < applied) {
+                return applied;
+            }
+            apply(taxi);
+            return version != null ? version : applied;
+        });
+    }
+
+    public void put(Long taxiId, String licensePlate, double latitude, double longitude) {
+        availableIds.add(taxiId);
+        long cellKey = grid.cellKey(latitude, longitude);
+        taxis.compute(taxiId, (id, previous) -> {
+            if (previous != null && previous.getCellKey() != cellKey) {
+                removeFromCell(previous.getCellKey(), id);
+            }
+            cells.computeIfAbsent(cellKey, key -> ConcurrentHashMap.newKeySet()).add(id);
+            return new IndexedTaxi(id, licensePlate, latitude, longitude, cellKey);
+        });
+    }
+
+    /**
+     * Moves an already indexed taxi to a new position; taxis that are not in the index are left out.
+     */
+    public void move(Long taxiId, double latitude, double longitude) {
+        IndexedTaxi taxi = taxis.get(taxiId);
+        if (taxi != null) {
+            put(taxiId, taxi.getLicensePlate(), latitude, longitude);
+        }
+    }
+
+    public void remove(Long taxiId) {
+        taxis.computeIfPresent(taxiId, (id, previous) -> {
+            removeFromCell(previous.getCellKey(), id);
+            return null;
+        });
+    }
+
+    public IndexedTaxi get(Long taxiId) {
+        return taxis.get(taxiId);
+    }
+
+    public int size() {
+        return taxis.size();
+    }
+
+    /**
+     * Whether the taxi is available, whether or not its location is known.
+     */
+    public boolean isAvailable(long taxiId) {
+        return availableIds.contains(taxiId);
+    }
+
+    public int availableCount() {
+        return availableIds.size();
+    }
+
+    public void forEachAvailableId(LongConsumer action) {
+        availableIds.forEach(action::accept);
+    }
+
+    /**
+     * Returns IDs of indexed taxis within the given radius of a point.
+     */
+    public List<Long> findWithin(double latitude, double longitude, double radiusKm) {
+        List<Long> result = new ArrayList<>();
+        int centerRow = grid.row(latitude);
+        int centerColumn = grid.column(longitude);
+        int rowSpan = grid.rowSpan(radiusKm);
+        int columnSpan = grid.columnSpan(latitude, radiusKm);
+
+        for (int row = centerRow - rowSpan; row <= centerRow + rowSpan; row++) {
+            for (int column = centerColumn - columnSpan; column <= centerColumn + columnSpan; column++) {
+                Set<Long> cell = cells.get(GeoGrid.cellKey(row, column));
+                if (cell == null) {
+                    continue;
+                }
+                for (Long taxiId : cell) {
+                    IndexedTaxi taxi = taxis.get(taxiId);
+                    if (taxi != null && distanceKm(latitude, longitude, taxi.getLatitude(), taxi.getLongitude()) <= radiusKm) {
+                        result.add(taxiId);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns up to {@code k} indexed taxis closest to a point and not further than {@code maxKm}, nearest first.
+     * Cells are visited in growing rings around the point, and the search stops as soon as the ring covers
+     * the k-th best distance found so far, so dense areas are answered from a handful of cells.
+     */
+    public List<NearbyTaxi> findNearest(double latitude, double longitude, int k, double maxKm) {
+        if (k <= 0 || taxis.isEmpty()) {
+            return List.of();
+        }
+        PriorityQueue<NearbyTaxi> best = new PriorityQueue<>(k, Comparator.comparingDouble(NearbyTaxi::getDistanceKm).reversed());
+        int centerRow = grid.row(latitude);
+        int centerColumn = grid.column(longitude);
+        int maxRing = grid.rowSpan(maxKm);
+        int previousColumnSpan = -1;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int columnSpan = grid.columnSpan(latitude, ring * grid.getCellSizeKm());
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                boolean previousRow = Math.abs(row - centerRow) < ring;
+                for (int column = centerColumn - columnSpan; column <= centerColumn + columnSpan; column++) {
+                    if (previousRow && Math.abs(column - centerColumn) <= previousColumnSpan) {
+                        continue;
+                    }
+                    collectNearest(GeoGrid.cellKey(row, column), latitude, longitude, k, maxKm, best);
+                }
+            }
+            previousColumnSpan = columnSpan;
+
+            double coveredKm = ring * grid.getCellSizeKm();
+            if (best.size() == k && best.peek().getDistanceKm() <= coveredKm) {
+                break;
+            }
+        }
+
+        List<NearbyTaxi> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyTaxi::getDistanceKm));
+        return result;
+    }
+
+    private void collectNearest(long cellKey, double latitude, double longitude, int k, double maxKm, PriorityQueue<NearbyTaxi> best) {
+        Set<Long> cell = cells.get(cellKey);
+        if (cell == null) {
+            return;
+        }
+        for (Long taxiId : cell) {
+            IndexedTaxi taxi = taxis.get(taxiId);
+            if (taxi == null) {
+                continue;
+            }
+            double distance = distanceKm(latitude, longitude, taxi.getLatitude(), taxi.getLongitude());
+            if (distance > maxKm) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new NearbyTaxi(taxi, distance));
+            } else if (distance < best.peek().getDistanceKm()) {
+                best.poll();
+                best.add(new NearbyTaxi(taxi, distance));
+            }
+        }
+    }
+
+    private void apply(Taxi taxi) {
+        if (taxi.getStatus() != AVAILABLE || taxi.isDeleted()) {
+            availableIds.remove(taxi.getId());
+            remove(taxi.getId());
+            return;
+        }
+        if (taxi.getLatitude() == null || taxi.getLongitude() == null) {
+            availableIds.add(taxi.getId());
+            remove(taxi.getId());
+            return;
+        }
+        put(taxi.getId(), taxi.getLicensePlate(), taxi.getLatitude(), taxi.getLongitude());
+    }
+
+    private void removeFromCell(long cellKey, Long taxiId) {
+        Set<Long> cell = cells.get(cellKey);
+        if (cell != null) {
+            cell.remove(taxiId);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.jetcab.service.taxi.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.taxi-location")
+public class TaxiLocationIngestProperties {
+
+    /**
+     * How often the latest buffered position of every taxi is written to the database.
+     */
+    private long flushIntervalMs = 2000;
+
+    /**
+     * Maximum number of positions written in one JDBC batch.
+     */
+    private int batchSize = 500;
+}
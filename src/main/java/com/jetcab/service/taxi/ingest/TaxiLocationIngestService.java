@@ -0,0 +1,8 @@
+package com.jetcab.service.taxi.ingest;
+
+public interface TaxiLocationIngestService {
+
+    void record(Long taxiId, double latitude, double longitude);
+
+    int flush();
+}
@@ -0,0 +1,91 @@
+package com.jetcab.service.taxi.ingest;
+
+import com.jetcab.persistence.TaxiPositionJdbcRepository;
+import com.jetcab.service.region.RegionService;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import com.jetcab.service.trail.TrailService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffers high-frequency position pings from taxi devices. Only the latest position of each taxi is kept;
+ * the spatial index, the trail and the taxi's region are updated right away while the database is written periodically in JDBC batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaxiLocationIngestServiceImpl implements TaxiLocationIngestService {
+
+    private final TaxiLocationIngestProperties properties;
+    private final TaxiPositionJdbcRepository taxiPositionJdbcRepository;
+    private final TaxiSpatialIndex taxiSpatialIndex;
+    private final TrailService trailService;
+    private final RegionService regionService;
+    private final Clock clock = Clock.systemUTC();
+
+    private final Map<Long, TaxiPosition> latestPositions = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(Long taxiId, double latitude, double longitude) {
+        TaxiPosition position = new TaxiPosition(taxiId, latitude, longitude, clock.instant());
+        latestPositions.put(taxiId, position);
+        taxiSpatialIndex.move(taxiId, latitude, longitude);
+        trailService.append(taxiId, position.getRecordedAt(), latitude, longitude);
+        regionService.track(taxiId, latitude, longitude);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${jetcab.taxi-location.flush-interval-ms:2000}")
+    public void flushPeriodically() {
+        flush();
+    }
+
+    @Override
+    public int flush() {
+        List<TaxiPosition> batch = new ArrayList<>(Math.min(latestPositions.size(), properties.getBatchSize()));
+        int flushed = 0;
+        for (Long taxiId : latestPositions.keySet()) {
+            TaxiPosition position = latestPositions.remove(taxiId);
+            if (position == null) {
+                continue;
+            }
+            batch.add(position);
+            if (batch.size() == properties.getBatchSize()) {
+                flushed += write(batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushed += write(batch);
+        }
+        return flushed;
+    }
+
+    /**
+     * Writes the batch. When the write fails, the positions go back to the buffer for the next flush unless a newer
+     * ping of the taxi has arrived meanwhile, and the remaining batches are still written.
+     */
+    private int write(List<TaxiPosition> batch) {
+        int size = batch.size();
+        try {
+            taxiPositionJdbcRepository.updatePositions(batch);
+            log.debug("Flushed {} taxi positions", size);
+            return size;
+        } catch (DataAccessException e) {
+            log.warn("Failed to flush {} taxi positions, keeping them for the next flush", size, e);
+            batch.forEach(position -> latestPositions.putIfAbsent(position.getTaxiId(), position));
+            return 0;
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.jetcab.service.taxi.ingest;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class TaxiPosition {
+    Long taxiId;
+    double latitude;
+    double longitude;
+    Instant recordedAt;
+}
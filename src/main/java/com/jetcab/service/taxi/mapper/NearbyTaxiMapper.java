@@ -0,0 +1,29 @@
+package com.jetcab.service.taxi.mapper;
+
+import com.jetcab.common.BaseModelMapper;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.taxi.dto.NearbyTaxiDTO;
+import com.jetcab.service.taxi.index.IndexedTaxi;
+import com.jetcab.service.taxi.index.NearbyTaxi;
+import org.springframework.stereotype.Component;
+
+import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
+
+@Component
+public class NearbyTaxiMapper extends BaseModelMapper<NearbyTaxi, NearbyTaxiDTO> {
+
+    @Override
+    public NearbyTaxiDTO map(NearbyTaxi nearbyTaxi) {
+        IndexedTaxi taxi = nearbyTaxi.getTaxi();
+        return NearbyTaxiDTO.builder()
+                .id(taxi.getId())
+                .licensePlate(taxi.getLicensePlate())
+                .status(AVAILABLE)
+                .location(LocationDTO.builder()
+                        .latitude(taxi.getLatitude())
+                        .longitude(taxi.getLongitude())
+                        .build())
+                .distanceKm(nearbyTaxi.getDistanceKm())
+                .build();
+    }
+}
@@ -1,25 +1,35 @@
 package com.jetcab.service.taxi.mapper;
 
 import com.jetcab.common.BaseModelMapper;
-import com.jetcab.service.location.mapper.LocationMapper;
+import com.jetcab.service.location.dto.LocationDTO;
 import com.jetcab.service.taxi.dto.TaxiDTO;
 import com.jetcab.service.taxi.model.Taxi;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class TaxiMapper extends BaseModelMapper<Taxi, TaxiDTO> {
 
-    private final LocationMapper locationMapper;
-
     @Override
     public TaxiDTO map(Taxi taxi) {
+        if (taxi == null) {
+            return null;
+        }
         return TaxiDTO.builder()
                 .id(taxi.getId())
                 .licensePlate(taxi.getLicensePlate())
                 .status(taxi.getStatus())
-                .location(locationMapper.map(taxi.getLocation()))
+                .location(mapLocation(taxi))
+                .locationUpdatedAt(taxi.getLocationUpdatedAt())
+                .build();
+    }
+
+    private LocationDTO mapLocation(Taxi taxi) {
+        if (taxi.getLatitude() == null || taxi.getLongitude() == null) {
+            return null;
+        }
+        return LocationDTO.builder()
+                .latitude(taxi.getLatitude())
+                .longitude(taxi.getLongitude())
                 .build();
     }
 }
@@ -1,23 +1,25 @@
 package com.jetcab.service.taxi.model;
 
-import com.jetcab.service.location.model.Location;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.ZonedDateTime;
 
 import static jakarta.persistence.GenerationType.IDENTITY;
 
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
 @Table(name = "taxis")
 public class Taxi {
 
@@ -29,9 +31,14 @@ public class Taxi {
     @Column(nullable = false)
     private String licensePlate;
 
-    @ManyToOne
-    @JoinColumn(name = "location_id")
-    private Location location;
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "location_updated_at", columnDefinition = "TIMESTAMP")
+    private ZonedDateTime locationUpdatedAt;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
@@ -39,4 +46,8 @@ public class Taxi {
 
     @Column(name = "is_deleted")
     private boolean deleted;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
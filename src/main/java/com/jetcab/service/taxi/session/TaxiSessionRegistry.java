@@ -0,0 +1,199 @@
+package com.jetcab.service.taxi.session;
+
+import com.jetcab.common.collection.LongHashSet;
+import com.jetcab.service.notification.PayloadFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+import static com.jetcab.service.notification.NotificationService.TAXI_ENDPOINT_PREFIX;
+
+/**
+ * Tracks which taxis currently have a STOMP session subscribed to their booking destination.
+ * A taxi counts as connected while at least one of its subscriptions is open, across any number of sessions.
+ * Also keeps the payload format each session negotiated on CONNECT; a taxi gets the format of its latest subscription.
+ */
+@Slf4j
+@Component
+public class TaxiSessionRegistry {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, Long>> taxiIdsBySubscriptionBySession = new HashMap<>();
+    private final Map<Long, Integer> subscriptionCounts = new HashMap<>();
+    private final LongHashSet connectedTaxiIds = new LongHashSet();
+    private final Map<String, PayloadFormat> formatsBySession = new HashMap<>();
+    private final Map<Long, PayloadFormat> formatsByTaxiId = new HashMap<>();
+    private final int[] sessionsByFormat = new int[PayloadFormat.values().length];
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (accessor.getSessionId() == null) {
+            return;
+        }
+        PayloadFormat format = PayloadFormat.fromHeader(accessor.getFirstNativeHeader(PayloadFormat.HEADER));
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (format.isBinary() && (attributes == null || !Boolean.TRUE.equals(attributes.get(PayloadFormat.BINARY_FRAMES_ATTRIBUTE)))) {
+            log.debug("Session {} asked for {} over a text-only transport, sending JSON", accessor.getSessionId(), format);
+            format = PayloadFormat.JSON;
+        }
+        lock.writeLock().lock();
+        try {
+            PayloadFormat previous = formatsBySession.put(accessor.getSessionId(), format);
+            if (previous != null) {
+                sessionsByFormat[previous.ordinal()]--;
+            }
+            sessionsByFormat[format.ordinal()]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long taxiId = parseTaxiId(accessor.getDestination());
+        if (taxiId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Long previous = taxiIdsBySubscriptionBySession.computeIfAbsent(accessor.getSessionId(), id -> new HashMap<>())
+                    .put(accessor.getSubscriptionId(), taxiId);
+            if (previous != null) {
+                release(previous);
+            }
+            formatsByTaxiId.put(taxiId, formatsBySession.getOrDefault(accessor.getSessionId(), PayloadFormat.JSON));
+            if (subscriptionCounts.merge(taxiId, 1, Integer::sum) == 1) {
+                connectedTaxiIds.add(taxiId);
+                log.debug("Taxi with ID {} connected", taxiId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        lock.writeLock().lock();
+        try {
+            Map<String, Long> subscriptions = taxiIdsBySubscriptionBySession.get(accessor.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            Long taxiId = subscriptions.remove(accessor.getSubscriptionId());
+            if (taxiId != null) {
+                release(taxiId);
+            }
+            if (subscriptions.isEmpty()) {
+                taxiIdsBySubscriptionBySession.remove(accessor.getSessionId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        lock.writeLock().lock();
+        try {
+            PayloadFormat format = formatsBySession.remove(event.getSessionId());
+            if (format != null) {
+                sessionsByFormat[format.ordinal()]--;
+            }
+            Map<String, Long> subscriptions = taxiIdsBySubscriptionBySession.remove(event.getSessionId());
+            if (subscriptions != null) {
+                subscriptions.values().forEach(this::release);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isConnected(long taxiId) {
+        lock.readLock().lock();
+        try {
+            return connectedTaxiIds.contains(taxiId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int connectedCount() {
+        lock.readLock().lock();
+        try {
+            return connectedTaxiIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PayloadFormat getFormat(long taxiId) {
+        lock.readLock().lock();
+        try {
+            return formatsByTaxiId.getOrDefault(taxiId, PayloadFormat.JSON);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether any open session negotiated the given format. JSON is always considered in use,
+     * as it is the default of sessions that did not negotiate any.
+     */
+    public boolean isInUse(PayloadFormat format) {
+        if (format == PayloadFormat.JSON) {
+            return true;
+        }
+        lock.readLock().lock();
+        try {
+            return sessionsByFormat[format.ordinal()] > 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes the ID of every connected taxi to the action. The action runs under the read lock and must be short.
+     */
+    public void forEachConnected(LongConsumer action) {
+        lock.readLock().lock();
+        try {
+            connectedTaxiIds.forEach(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void release(Long taxiId) {
+        Integer remaining = subscriptionCounts.computeIfPresent(taxiId, (id, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            connectedTaxiIds.remove(taxiId);
+            formatsByTaxiId.remove(taxiId);
+            log.debug("Taxi with ID {} disconnected", taxiId);
+        }
+    }
+
+    private static Long parseTaxiId(String destination) {
+        if (destination == null || !destination.startsWith(TAXI_ENDPOINT_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring(TAXI_ENDPOINT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.jetcab.service.trail;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "jetcab.trail")
+public class TrailProperties {
+
+    /**
+     * Directory holding the trail segment files. Required, and should be on durable storage: trails are kept
+     * across restarts for the whole retention.
+     */
+    private Path directory;
+
+    /**
+     * Size of the memory-mapped active segment. It is sealed once full.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Age after which the active segment is sealed even if it is not full.
+     */
+    private Duration rolloverInterval = Duration.ofHours(1);
+
+    /**
+     * Sealed segments whose newest point is older than this are deleted.
+     */
+    private Duration retention = Duration.ofDays(30);
+
+    /**
+     * Interval of the rollover and retention checks, in milliseconds.
+     */
+    private long maintenanceIntervalMs = 60_000;
+
+    /**
+     * Default Douglas–Peucker tolerance applied to encoded trails, in meters. Zero keeps every point.
+     */
+    private double simplifyToleranceM = 0;
+}
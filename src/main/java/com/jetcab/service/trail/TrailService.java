@@ -0,0 +1,16 @@
+package com.jetcab.service.trail;
+
+import com.jetcab.service.trail.dto.TrailPointDTO;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+public interface TrailService {
+
+    void append(Long taxiId, Instant recordedAt, double latitude, double longitude);
+
+    List<TrailPointDTO> getTrail(Long taxiId, ZonedDateTime from, ZonedDateTime to);
+
+    byte[] getEncodedTrail(Long taxiId, ZonedDateTime from, ZonedDateTime to, Double toleranceMeters);
+}
@@ -0,0 +1,47 @@
+package com.jetcab.service.trail;
+
+import com.jetcab.persistence.TaxiRepository;
+import com.jetcab.service.trail.codec.Trajectory;
+import com.jetcab.service.trail.codec.TrajectoryCodec;
+import com.jetcab.service.trail.codec.TrajectorySimplifier;
+import com.jetcab.service.trail.dto.TrailPointDTO;
+import com.jetcab.service.trail.store.TrailStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class TrailServiceImpl implements TrailService {
+
+    private final TrailProperties properties;
+    private final TrailStore trailStore;
+    private final TaxiRepository taxiRepository;
+
+    @Override
+    public void append(Long taxiId, Instant recordedAt, double latitude, double longitude) {
+        trailStore.append(taxiId, recordedAt.toEpochMilli(), latitude, longitude);
+    }
+
+    @Override
+    public List<TrailPointDTO> getTrail(Long taxiId, ZonedDateTime from, ZonedDateTime to) {
+        taxiRepository.findTaxiById(taxiId);
+        List<TrailPointDTO> points = new ArrayList<>();
+        trailStore.read(taxiId, from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli(),
+                (timestamp, latitude, longitude) -> points.add(new TrailPointDTO(Instant.ofEpochMilli(timestamp), latitude, longitude)));
+        return points;
+    }
+
+    @Override
+    public byte[] getEncodedTrail(Long taxiId, ZonedDateTime from, ZonedDateTime to, Double toleranceMeters) {
+        taxiRepository.findTaxiById(taxiId);
+        Trajectory trajectory = new Trajectory();
+        trailStore.read(taxiId, from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli(), trajectory);
+        double tolerance = toleranceMeters != null ? toleranceMeters : properties.getSimplifyToleranceM();
+        return TrajectoryCodec.encode(TrajectorySimplifier.simplify(trajectory, tolerance));
+    }
+}
@@ -0,0 +1,62 @@
+package com.jetcab.service.trail.codec;
+
+import com.jetcab.service.trail.store.TrailStore;
+
+import java.util.Arrays;
+
+/**
+ * Growable columnar buffer of trail points in time order.
+ */
+public class Trajectory implements TrailStore.PointConsumer {
+
+    private long[] timestamps;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int size;
+
+    public Trajectory() {
+        this(64);
+    }
+
+    public Trajectory(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.timestamps = new long[capacity];
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+    }
+
+    @Override
+    public void accept(long timestamp, double latitude, double longitude) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            latitudes = Arrays.copyOf(latitudes, size * 2);
+            longitudes = Arrays.copyOf(longitudes, size * 2);
+        }
+        timestamps[size] = timestamp;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public double latitude(int i) {
+        return latitudes[i];
+    }
+
+    public double longitude(int i) {
+        return longitudes[i];
+    }
+
+    public void forEach(TrailStore.PointConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(timestamps[i], latitudes[i], longitudes[i]);
+        }
+    }
+}
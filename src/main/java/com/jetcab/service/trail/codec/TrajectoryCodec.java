@@ -0,0 +1,143 @@
+package com.jetcab.service.trail.codec;
+
+import com.jetcab.service.trail.store.TrailStore;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of trajectories.
+ * <p>
+ * Timestamps are stored as delta-of-delta milliseconds, coordinates as deltas of fixed-point
+ * micro-degrees (about 0.1 m of precision). Every value is a zigzag varint, so a taxi pinging at a
+ * steady rate while moving slowly costs a few bytes per point. The first point is stored relative to zero.
+ * There is no header or point count, the decoder reads until the end of the data.
+ */
+public final class TrajectoryCodec {
+
+    private static final double FIXED_POINT_SCALE = 1_000_000d;
+
+    private TrajectoryCodec() {
+    }
+
+    public static byte[] encode(Trajectory trajectory) {
+        Output output = new Output(trajectory.size() * 4 + 16);
+        long previousTimestamp = 0;
+        long previousDelta = 0;
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (int i = 0; i < trajectory.size(); i++) {
+            long timestamp = trajectory.timestamp(i);
+            long latitude = toFixedPoint(trajectory.latitude(i));
+            long longitude = toFixedPoint(trajectory.longitude(i));
+
+            long delta = timestamp - previousTimestamp;
+            output.writeSigned(delta - previousDelta);
+            output.writeSigned(latitude - previousLatitude);
+            output.writeSigned(longitude - previousLongitude);
+
+            previousTimestamp = timestamp;
+            previousDelta = i == 0 ? 0 : delta;
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes the points one by one and hands them to the consumer without materializing the trajectory.
+     */
+    public static void decode(byte[] data, TrailStore.PointConsumer consumer) {
+        Input input = new Input(data);
+        long timestamp = 0;
+        long delta = 0;
+        long latitude = 0;
+        long longitude = 0;
+        boolean first = true;
+        while (input.hasRemaining()) {
+            long deltaOfDelta = input.readSigned();
+            if (first) {
+                timestamp = deltaOfDelta;
+                first = false;
+            } else {
+                delta += deltaOfDelta;
+                timestamp += delta;
+            }
+            latitude += input.readSigned();
+            longitude += input.readSigned();
+            consumer.accept(timestamp, latitude / FIXED_POINT_SCALE, longitude / FIXED_POINT_SCALE);
+        }
+    }
+
+    public static Trajectory decode(byte[] data) {
+        Trajectory trajectory = new Trajectory();
+        decode(data, trajectory);
+        return trajectory;
+    }
+
+    private static long toFixedPoint(double degrees) {
+        return Math.round(degrees * FIXED_POINT_SCALE);
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int position;
+
+        Output(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeSigned(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeUnsigned(long value) {
+            if (position + 10 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + 10));
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasRemaining() {
+            return position < data.length;
+        }
+
+        long readSigned() {
+            long value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readUnsigned() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == data.length) {
+                    throw new IllegalArgumentException("Truncated trajectory data");
+                }
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
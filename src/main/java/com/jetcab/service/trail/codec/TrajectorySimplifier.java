@@ -0,0 +1,93 @@
+package com.jetcab.service.trail.codec;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.jetcab.common.geo.GeoUtils.KM_PER_DEGREE_LATITUDE;
+import static java.lang.Math.cos;
+import static java.lang.Math.hypot;
+import static java.lang.Math.toRadians;
+
+/**
+ * Douglas–Peucker simplification of trajectories. Distances are measured in meters on a local
+ * equirectangular projection, which is accurate enough at the scale of a city.
+ */
+public final class TrajectorySimplifier {
+
+    private static final double METERS_PER_DEGREE = KM_PER_DEGREE_LATITUDE * 1000;
+
+    private TrajectorySimplifier() {
+    }
+
+    /**
+     * Drops the points that deviate less than the tolerance from the simplified line.
+     * The first and the last points are always kept.
+     */
+    public static Trajectory simplify(Trajectory trajectory, double toleranceMeters) {
+        int size = trajectory.size();
+        if (size < 3 || toleranceMeters <= 0) {
+            return trajectory;
+        }
+
+        double cosLatitude = cos(toRadians(trajectory.latitude(0)));
+        boolean[] keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, size - 1});
+        int kept = 2;
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int start = range[0];
+            int end = range[1];
+            double maxDistance = 0;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = distanceToSegment(trajectory, i, start, end, cosLatitude);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest != -1 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                kept++;
+                ranges.push(new int[]{start, farthest});
+                ranges.push(new int[]{farthest, end});
+            }
+        }
+
+        Trajectory simplified = new Trajectory(kept);
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                simplified.accept(trajectory.timestamp(i), trajectory.latitude(i), trajectory.longitude(i));
+            }
+        }
+        return simplified;
+    }
+
+    private static double distanceToSegment(Trajectory trajectory, int point, int start, int end, double cosLatitude) {
+        double x = x(trajectory, point, cosLatitude);
+        double y = y(trajectory, point);
+        double x1 = x(trajectory, start, cosLatitude);
+        double y1 = y(trajectory, start);
+        double dx = x(trajectory, end, cosLatitude) - x1;
+        double dy = y(trajectory, end) - y1;
+
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return hypot(x - x1, y - y1);
+        }
+        double t = Math.max(0, Math.min(1, ((x - x1) * dx + (y - y1) * dy) / lengthSquared));
+        return hypot(x - (x1 + t * dx), y - (y1 + t * dy));
+    }
+
+    private static double x(Trajectory trajectory, int i, double cosLatitude) {
+        return trajectory.longitude(i) * METERS_PER_DEGREE * cosLatitude;
+    }
+
+    private static double y(Trajectory trajectory, int i) {
+        return trajectory.latitude(i) * METERS_PER_DEGREE;
+    }
+}
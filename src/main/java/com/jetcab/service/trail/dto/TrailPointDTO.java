@@ -0,0 +1,19 @@
+package com.jetcab.service.trail.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrailPointDTO implements Serializable {
+    private Instant recordedAt;
+    private double latitude;
+    private double longitude;
+}
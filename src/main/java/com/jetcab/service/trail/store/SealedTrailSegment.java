@@ -0,0 +1,181 @@
+package com.jetcab.service.trail.store;
+
+import com.jetcab.service.trail.codec.Trajectory;
+import com.jetcab.service.trail.codec.TrajectoryCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An immutable segment file holding one block per taxi with the points of the taxi in time order,
+ * encoded with the {@link TrajectoryCodec}, so coordinates are kept to micro-degrees.
+ * A footer lists the blocks by taxi id with their position, point count and time range; only the footer
+ * is kept in memory, one entry per taxi, and blocks are read from the file on demand.
+ * <p>
+ * Layout: the blocks, then {@value #FOOTER_ENTRY_SIZE}-byte footer entries sorted by taxi id, then a trailer
+ * with the footer position, the number of entries and the format version.
+ */
+class SealedTrailSegment {
+
+    static final int FORMAT_VERSION = 2;
+
+    private static final int FOOTER_ENTRY_SIZE = 40;
+    private static final int TRAILER_SIZE = 16;
+
+    private final int number;
+    private final Path file;
+    private final FileChannel channel;
+    private final long[] taxiIds;
+    private final long[] positions;
+    private final int[] lengths;
+    private final int[] counts;
+    private final long[] minTimestamps;
+    private final long[] maxTimestamps;
+    private final long maxTimestamp;
+
+    private SealedTrailSegment(int number, Path file) throws IOException {
+        this.number = number;
+        this.file = file;
+        this.channel = FileChannel.open(file, READ);
+        try {
+            ByteBuffer trailer = read(channel.size() - TRAILER_SIZE, TRAILER_SIZE);
+            long footerPosition = trailer.getLong();
+            int entries = trailer.getInt();
+            int version = trailer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported trail segment format " + version + " in " + file);
+            }
+            ByteBuffer footer = read(footerPosition, entries * FOOTER_ENTRY_SIZE);
+            taxiIds = new long[entries];
+            positions = new long[entries];
+            lengths = new int[entries];
+            counts = new int[entries];
+            minTimestamps = new long[entries];
+            maxTimestamps = new long[entries];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < entries; i++) {
+                taxiIds[i] = footer.getLong();
+                positions[i] = footer.getLong();
+                lengths[i] = footer.getInt();
+                counts[i] = footer.getInt();
+                minTimestamps[i] = footer.getLong();
+                maxTimestamps[i] = footer.getLong();
+                max = Math.max(max, maxTimestamps[i]);
+            }
+            maxTimestamp = max;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static SealedTrailSegment open(int number, Path file) throws IOException {
+        return new SealedTrailSegment(number, file);
+    }
+
+    /**
+     * Writes the records of the active segment, grouped by taxi in time order, to a temporary file that is
+     * flushed and then moved into place, so a sealed file is either complete or absent.
+     */
+    static SealedTrailSegment write(int number, Path file, TrailSegment active, Map<Long, TrailIndex> indexes) throws IOException {
+        long[] ids = indexes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            ByteBuffer footer = ByteBuffer.allocate(ids.length * FOOTER_ENTRY_SIZE);
+            for (long taxiId : ids) {
+                int[] offsets = indexes.get(taxiId).offsetsBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+                long position = output.size();
+                writeBlock(output, active, offsets);
+                footer.putLong(taxiId)
+                        .putLong(position)
+                        .putInt((int) (output.size() - position))
+                        .putInt(offsets.length)
+                        .putLong(active.timestampAt(offsets[0]))
+                        .putLong(active.timestampAt(offsets[offsets.length - 1]));
+            }
+            long footerPosition = output.size();
+            output.write(footer.array());
+            output.writeLong(footerPosition);
+            output.writeInt(ids.length);
+            output.writeInt(FORMAT_VERSION);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, ATOMIC_MOVE);
+        return open(number, file);
+    }
+
+    int number() {
+        return number;
+    }
+
+    /**
+     * Epoch millis of the newest point in the segment.
+     */
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    int count(long taxiId) {
+        int entry = Arrays.binarySearch(taxiIds, taxiId);
+        return entry < 0 ? 0 : counts[entry];
+    }
+
+    /**
+     * Reports the points of the taxi with {@code from <= timestamp < to} to the consumer in time order.
+     */
+    void read(long taxiId, long from, long to, TrailStore.PointConsumer consumer) throws IOException {
+        int entry = Arrays.binarySearch(taxiIds, taxiId);
+        if (entry < 0 || maxTimestamps[entry] < from || minTimestamps[entry] >= to) {
+            return;
+        }
+        TrajectoryCodec.decode(read(positions[entry], lengths[entry]).array(), (timestamp, latitude, longitude) -> {
+            if (timestamp >= from && timestamp < to) {
+                consumer.accept(timestamp, latitude, longitude);
+            }
+        });
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    private static void writeBlock(DataOutputStream output, TrailSegment active, int[] offsets) throws IOException {
+        Trajectory trajectory = new Trajectory(offsets.length);
+        for (int offset : offsets) {
+            trajectory.accept(active.timestampAt(offset), active.latitudeAt(offset), active.longitudeAt(offset));
+        }
+        output.write(TrajectoryCodec.encode(trajectory));
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated trail segment " + file);
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,60 @@
+package com.jetcab.service.trail.store;
+
+import java.util.Arrays;
+
+/**
+ * Time index of the records of a single taxi in the active segment: timestamps and record offsets
+ * in ascending time order. It is dropped once the segment is sealed.
+ */
+class TrailIndex {
+
+    private long[] timestamps = new long[16];
+    private int[] offsets = new int[16];
+    private int size;
+
+    synchronized void add(long timestamp, int offset) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        // Pings may arrive slightly out of order, keep the arrays sorted by shifting the tail
+        int position = size;
+        while (position > 0 && timestamps[position - 1] > timestamp) {
+            position--;
+        }
+        if (position < size) {
+            System.arraycopy(timestamps, position, timestamps, position + 1, size - position);
+            System.arraycopy(offsets, position, offsets, position + 1, size - position);
+        }
+        timestamps[position] = timestamp;
+        offsets[position] = offset;
+        size++;
+    }
+
+    /**
+     * Offsets of the records with {@code from <= timestamp < to}, in time order.
+     */
+    synchronized int[] offsetsBetween(long from, long to) {
+        int start = lowerBound(from);
+        int end = lowerBound(to);
+        return start >= end ? new int[0] : Arrays.copyOfRange(offsets, start, end);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,114 @@
+package com.jetcab.service.trail.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The active segment: a fixed-size file mapped into memory, holding {@link TrailStore#RECORD_SIZE}-byte records.
+ * The first record slot is a header with the segment number. Unused space is zero-filled, so a record with
+ * taxi id 0 marks the end of the written data. The file is reused for the next segment once this one is sealed,
+ * so it is mapped only once.
+ */
+class TrailSegment {
+
+    private static final int NUMBER_OFFSET = 0;
+    private static final int TAXI_ID_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int LATITUDE_OFFSET = 16;
+    private static final int LONGITUDE_OFFSET = 24;
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int writeOffset = TrailStore.RECORD_SIZE;
+
+    TrailSegment(Path file, int size) throws IOException {
+        this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.capacity = size;
+    }
+
+    int number() {
+        return buffer.getInt(NUMBER_OFFSET);
+    }
+
+    boolean isEmpty() {
+        return writeOffset == TrailStore.RECORD_SIZE;
+    }
+
+    boolean isFull() {
+        return writeOffset + TrailStore.RECORD_SIZE > capacity;
+    }
+
+    /**
+     * Writes a record at the end of the segment and returns its offset. The taxi id goes last,
+     * so a record cut short by a crash is never picked up on recovery.
+     */
+    int append(long taxiId, long timestamp, double latitude, double longitude) {
+        int offset = writeOffset;
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putDouble(offset + LATITUDE_OFFSET, latitude);
+        buffer.putDouble(offset + LONGITUDE_OFFSET, longitude);
+        buffer.putLong(offset + TAXI_ID_OFFSET, taxiId);
+        writeOffset += TrailStore.RECORD_SIZE;
+        return offset;
+    }
+
+    /**
+     * Scans the written records, positions the write offset after the last one and reports each to the visitor.
+     */
+    void recover(RecordVisitor visitor) {
+        int offset = TrailStore.RECORD_SIZE;
+        while (offset + TrailStore.RECORD_SIZE <= capacity) {
+            long taxiId = buffer.getLong(offset + TAXI_ID_OFFSET);
+            if (taxiId == 0) {
+                break;
+            }
+            visitor.visit(taxiId, timestampAt(offset), offset);
+            offset += TrailStore.RECORD_SIZE;
+        }
+        writeOffset = offset;
+    }
+
+    /**
+     * Empties the segment for reuse under the given number. The records are zeroed and flushed before the
+     * number changes, so a crash in between leaves the previous number, whose sealed file already exists.
+     */
+    void reset(int number) {
+        for (int offset = TrailStore.RECORD_SIZE; offset < writeOffset; offset += ZEROS.length) {
+            buffer.put(offset, ZEROS, 0, Math.min(ZEROS.length, writeOffset - offset));
+        }
+        buffer.force();
+        buffer.putInt(NUMBER_OFFSET, number);
+        buffer.force();
+        writeOffset = TrailStore.RECORD_SIZE;
+    }
+
+    long timestampAt(int offset) {
+        return buffer.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    double latitudeAt(int offset) {
+        return buffer.getDouble(offset + LATITUDE_OFFSET);
+    }
+
+    double longitudeAt(int offset) {
+        return buffer.getDouble(offset + LONGITUDE_OFFSET);
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    interface RecordVisitor {
+        void visit(long taxiId, long timestamp, int offset);
+    }
+}
@@ -0,0 +1,281 @@
+package com.jetcab.service.trail.store;
+
+import com.jetcab.service.trail.TrailProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only store of taxi GPS trails.
+ * <p>
+ * Points are appended as {@value #RECORD_SIZE}-byte records (taxi id, epoch millis, latitude and longitude)
+ * to the active segment, a memory-mapped file with a per-taxi time index in memory. Once the active segment is
+ * full, or older than the rollover interval, it is sealed: its points are rewritten grouped by taxi and
+ * delta-encoded into an immutable {@link SealedTrailSegment}, whose footer is the only per-segment state kept
+ * in memory, and the mapped file is reused for the next segment. Sealed segments whose newest point is older
+ * than the retention are deleted. On startup only the footers of the sealed segments and the records of the active one are read.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrailStore {
+
+    public static final int RECORD_SIZE = 32;
+
+    private static final String ACTIVE_FILE = "trail-active.seg";
+    private static final String SEALED_FILE_FORMAT = "trail-%08d.sealed";
+
+    private final TrailProperties properties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<SealedTrailSegment> sealed = new ArrayList<>();
+    private final Map<Long, TrailIndex> indexes = new ConcurrentHashMap<>();
+    private Path directory;
+    private TrailSegment active;
+    private long activeSince;
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        directory = properties.getDirectory();
+        if (directory == null) {
+            throw new IllegalStateException("jetcab.trail.directory must point to a durable directory for the trail segments");
+        }
+        int segmentSize = (int) (properties.getSegmentSize().toBytes() / RECORD_SIZE * RECORD_SIZE);
+        if (segmentSize < 2 * RECORD_SIZE) {
+            throw new IllegalStateException("Trail segment size must hold at least one record");
+        }
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> file.getFileName().toString().matches("trail-\\d{8}\\.sealed")).sorted().toList();
+        }
+        for (Path file : files) {
+            sealed.add(SealedTrailSegment.open(Integer.parseInt(file.getFileName().toString().substring(6, 14)), file));
+        }
+
+        Path activeFile = directory.resolve(ACTIVE_FILE);
+        active = new TrailSegment(activeFile, (int) Math.max(Files.exists(activeFile) ? Files.size(activeFile) : 0, segmentSize));
+        int next = sealed.isEmpty() ? 0 : sealed.get(sealed.size() - 1).number() + 1;
+        if (active.number() < next) {
+            // sealed before a crash, or a fresh file
+            active.reset(next);
+        }
+        active.recover((taxiId, timestamp, offset) -> indexOf(taxiId).add(timestamp, offset));
+        activeSince = System.nanoTime();
+        log.info("Opened trail store in {} with {} sealed segments and {} taxis in the active segment", directory, sealed.size(), indexes.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (SealedTrailSegment segment : sealed) {
+                segment.close();
+            }
+            sealed.clear();
+            active.close();
+            indexes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public synchronized void append(long taxiId, long timestamp, double latitude, double longitude) {
+        if (active.isFull()) {
+            seal();
+        }
+        if (active.isEmpty()) {
+            activeSince = System.nanoTime();
+        }
+        int offset = active.append(taxiId, timestamp, latitude, longitude);
+        indexOf(taxiId).add(timestamp, offset);
+    }
+
+    /**
+     * Reports the points of the taxi with {@code from <= timestamp < to} to the consumer in time order.
+     */
+    public void read(long taxiId, long from, long to, PointConsumer consumer) {
+        PointBuffer points = new PointBuffer();
+        lock.readLock().lock();
+        try {
+            for (SealedTrailSegment segment : sealed) {
+                if (segment.maxTimestamp() >= from) {
+                    segment.read(taxiId, from, to, points);
+                }
+            }
+            TrailIndex index = indexes.get(taxiId);
+            if (index != null) {
+                for (int offset : index.offsetsBetween(from, to)) {
+                    points.accept(active.timestampAt(offset), active.latitudeAt(offset), active.longitudeAt(offset));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        points.forEachInTimeOrder(consumer);
+    }
+
+    public int count(long taxiId) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (SealedTrailSegment segment : sealed) {
+                count += segment.count(taxiId);
+            }
+            TrailIndex index = indexes.get(taxiId);
+            return index == null ? count : count + index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int sealedCount() {
+        lock.readLock().lock();
+        try {
+            return sealed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jetcab.trail.maintenance-interval-ms:60000}")
+    public void maintainPeriodically() {
+        rollOver();
+        evictExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Seals the active segment if it holds points and is older than the rollover interval.
+     */
+    public synchronized void rollOver() {
+        if (!active.isEmpty() && System.nanoTime() - activeSince >= properties.getRolloverInterval().toNanos()) {
+            seal();
+        }
+    }
+
+    /**
+     * Deletes the sealed segments whose newest point is older than the retention.
+     *
+     * @return the number of deleted segments
+     */
+    public int evictExpired(long now) {
+        long expiredBefore = now - properties.getRetention().toMillis();
+        List<SealedTrailSegment> expired = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Iterator<SealedTrailSegment> iterator = sealed.iterator(); iterator.hasNext(); ) {
+                SealedTrailSegment segment = iterator.next();
+                if (segment.maxTimestamp() < expiredBefore) {
+                    iterator.remove();
+                    expired.add(segment);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (SealedTrailSegment segment : expired) {
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("Failed to delete expired trail segment {}", segment.number(), e);
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Deleted {} trail segments older than {}", expired.size(), properties.getRetention());
+        }
+        return expired.size();
+    }
+
+    /**
+     * Writes the active segment as a sealed segment, then empties it for the next number and drops its index.
+     * Appends wait meanwhile; readers are only held off while the sealed segment replaces the active data.
+     */
+    private void seal() {
+        int number = active.number();
+        try {
+            SealedTrailSegment segment = SealedTrailSegment.write(number, directory.resolve(SEALED_FILE_FORMAT.formatted(number)), active, indexes);
+            lock.writeLock().lock();
+            try {
+                sealed.add(segment);
+                indexes.clear();
+                active.reset(number + 1);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Sealed trail segment {}", number);
+    }
+
+    private TrailIndex indexOf(long taxiId) {
+        return indexes.computeIfAbsent(taxiId, id -> new TrailIndex());
+    }
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(long timestamp, double latitude, double longitude);
+    }
+
+    /**
+     * Points collected from several segments. A ping delayed past a seal lands in a later segment than
+     * points newer than it, so the collected points are sorted by time when they are out of order.
+     */
+    private static final class PointBuffer implements PointConsumer {
+
+        private long[] timestamps = new long[64];
+        private double[] latitudes = new double[64];
+        private double[] longitudes = new double[64];
+        private int size;
+        private boolean ordered = true;
+
+        @Override
+        public void accept(long timestamp, double latitude, double longitude) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            ordered &= size == 0 || timestamps[size - 1] <= timestamp;
+            timestamps[size] = timestamp;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+
+        void forEachInTimeOrder(PointConsumer consumer) {
+            if (ordered) {
+                for (int i = 0; i < size; i++) {
+                    consumer.accept(timestamps[i], latitudes[i], longitudes[i]);
+                }
+                return;
+            }
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+            for (int i : order) {
+                consumer.accept(timestamps[i], latitudes[i], longitudes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- V002 inserts rows with explicit IDs, which does not advance the identity sequences
+ALTER TABLE passengers ALTER COLUMN id RESTART WITH 4;
+ALTER TABLE locations ALTER COLUMN id RESTART WITH 4;
+ALTER TABLE taxis ALTER COLUMN id RESTART WITH 4;
+ALTER TABLE bookings ALTER COLUMN id RESTART WITH 4;
@@ -0,0 +1,11 @@
+ALTER TABLE taxis ADD COLUMN latitude DOUBLE;
+ALTER TABLE taxis ADD COLUMN longitude DOUBLE;
+ALTER TABLE taxis ADD COLUMN location_updated_at TIMESTAMP;
+
+UPDATE taxis t
+SET latitude            = (SELECT l.latitude FROM locations l WHERE l.id = t.location_id),
+    longitude           = (SELECT l.longitude FROM locations l WHERE l.id = t.location_id),
+    location_updated_at = CURRENT_TIMESTAMP
+WHERE t.location_id IS NOT NULL;
+
+ALTER TABLE taxis DROP COLUMN location_id;
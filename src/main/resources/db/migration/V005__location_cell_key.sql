@@ -0,0 +1,14 @@
+ALTER TABLE locations ADD COLUMN cell_key BIGINT;
+
+-- Only the oldest location of each cell gets the key; the rest stay referenced by existing bookings.
+UPDATE locations
+SET cell_key = FLOOR((latitude + 90) / (${location_cell_size_km} / 111.32)) * 4294967296
+             + FLOOR((longitude + 180) / (${location_cell_size_km} / 111.32))
+WHERE id IN (SELECT MIN(id)
+             FROM locations
+             WHERE latitude IS NOT NULL
+               AND longitude IS NOT NULL
+             GROUP BY FLOOR((latitude + 90) / (${location_cell_size_km} / 111.32)),
+                      FLOOR((longitude + 180) / (${location_cell_size_km} / 111.32)));
+
+CREATE UNIQUE INDEX ux_locations_cell_key ON locations (cell_key);
@@ -0,0 +1,3 @@
+ALTER TABLE bookings ADD COLUMN confirmed_at TIMESTAMP;
+ALTER TABLE bookings ADD COLUMN completed_at TIMESTAMP;
+ALTER TABLE bookings ADD COLUMN pickup_eta_seconds INT;
@@ -0,0 +1,11 @@
+CREATE TABLE outbox
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    booking_id BIGINT                 NOT NULL,
+    payload    CHARACTER LARGE OBJECT NOT NULL,
+    created_at TIMESTAMP              NOT NULL,
+    claimed_by VARCHAR(36),
+    claimed_at TIMESTAMP
+);
+
+CREATE INDEX ix_outbox_claimed_by ON outbox (claimed_by);
@@ -0,0 +1,2 @@
+ALTER TABLE bookings ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE outbox ADD COLUMN delta CHARACTER LARGE OBJECT;
@@ -0,0 +1 @@
+ALTER TABLE taxis ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,8 @@
+-- Cell size the location cell keys were computed with; the application refuses to start with another one.
+CREATE TABLE location_grid
+(
+    cell_size_km DOUBLE PRECISION NOT NULL
+);
+
+INSERT INTO location_grid (cell_size_km)
+VALUES (${location_cell_size_km});
@@ -0,0 +1,80 @@
+package com.jetcab.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void addContainsRemove() {
+        LongHashSet set = new LongHashSet(4);
+
+        assertTrue(set.add(0L));
+        assertTrue(set.add(42L));
+        assertTrue(set.add(-7L));
+        assertFalse(set.add(42L));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(-7L));
+        assertFalse(set.contains(43L));
+
+        assertTrue(set.remove(0L));
+        assertTrue(set.remove(42L));
+        assertFalse(set.remove(42L));
+        assertEquals(1, set.size());
+        assertFalse(set.contains(0L));
+        assertTrue(set.contains(-7L));
+    }
+
+    @Test
+    void shouldBehaveLikeHashSetUnderRandomOperations() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        Set<Long> actual = new HashSet<>();
+        set.forEach(actual::add);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void forEachCommon_shouldPassKeysPresentInBothSets() {
+        LongHashSet first = new LongHashSet();
+        LongHashSet second = new LongHashSet();
+        for (long key = 0; key < 100; key++) {
+            first.add(key);
+        }
+        second.add(5L);
+        second.add(50L);
+        second.add(500L);
+
+        List<Long> common = new ArrayList<>();
+        LongHashSet.forEachCommon(first, second, common::add);
+
+        common.sort(Long::compare);
+        assertEquals(List.of(5L, 50L), common);
+    }
+}
@@ -0,0 +1,96 @@
+package com.jetcab.common.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeightedLaneExecutorTest {
+
+    private enum Lane {HIGH, LOW}
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WeightedLaneExecutor<Lane> executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new WeightedLaneExecutor<>("test-lane-", Lane.class, lane -> lane == Lane.HIGH ? 2 : 1, 10, 1,
+                new WeightedLaneExecutor.LaneListener<>() {
+                });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_shouldServeLanesInWeightedRoundRobin() throws InterruptedException {
+        blockWorker(Lane.LOW);
+        submit(Lane.LOW, "low-1", "low-2", "low-3");
+        submit(Lane.HIGH, "high-1", "high-2", "high-3");
+        assertEquals(3, executor.size(Lane.HIGH));
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("high-1", "high-2", "low-1", "high-3", "low-2", "low-3"), executed);
+    }
+
+    @Test
+    void execute_shouldRejectWhenLaneIsFullOrShutDown() throws InterruptedException {
+        blockWorker(Lane.HIGH);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(executor.execute(Lane.HIGH, () -> {
+            }));
+        }
+
+        assertFalse(executor.execute(Lane.HIGH, () -> {
+        }));
+        assertTrue(executor.execute(Lane.LOW, () -> {
+        }));
+
+        executor.shutdown();
+        assertFalse(executor.execute(Lane.LOW, () -> {
+        }));
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveWeight() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightedLaneExecutor<>("test-lane-", Lane.class, lane -> 0, 10, 1,
+                new WeightedLaneExecutor.LaneListener<>() {
+                }));
+    }
+
+    private void blockWorker(Lane lane) throws InterruptedException {
+        executor.execute(lane, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+    }
+
+    private void submit(Lane lane, String... names) {
+        for (String name : names) {
+            executor.execute(lane, () -> executed.add(name));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.jetcab.configuration;
+
+import com.jetcab.common.concurrent.WeightedLaneExecutor;
+import com.jetcab.service.notification.NotificationPriority;
+import com.jetcab.service.notification.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jetcab.service.notification.NotificationPriority.OFFER;
+import static com.jetcab.service.notification.NotificationPriority.REVOCATION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationExecutorConfigurationTest {
+
+    @Test
+    void notificationExecutor_shouldRejectAndCountDeliveriesBeyondLaneCapacity() throws InterruptedException {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getExecutor().setConcurrency(1);
+        properties.getExecutor().setQueueCapacity(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WeightedLaneExecutor<NotificationPriority> executor = new NotificationExecutorConfiguration().notificationExecutor(properties, meterRegistry);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        Runnable blocked = () -> {
+            try {
+                started.countDown();
+                release.await();
+                completed.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try {
+            assertTrue(executor.execute(OFFER, blocked));
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            assertTrue(executor.execute(OFFER, blocked));
+            assertFalse(executor.execute(OFFER, blocked));
+            assertTrue(executor.execute(REVOCATION, blocked));
+
+            assertEquals(1.0, meterRegistry.get("jetcab.notification.rejected").tag("lane", "offer").counter().count());
+            assertEquals(0.0, meterRegistry.get("jetcab.notification.rejected").tag("lane", "revocation").counter().count());
+            assertEquals(1.0, meterRegistry.get("jetcab.notification.lane.queued").tag("lane", "offer").gauge().value());
+            assertEquals(1.0, meterRegistry.get("jetcab.notification.lane.queued").tag("lane", "revocation").gauge().value());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(3, completed.get());
+        assertEquals(2, meterRegistry.get("jetcab.notification.lane.wait").tag("lane", "offer").timer().count());
+        assertEquals(1, meterRegistry.get("jetcab.notification.lane.wait").tag("lane", "revocation").timer().count());
+    }
+}
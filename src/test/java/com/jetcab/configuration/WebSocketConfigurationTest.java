@@ -0,0 +1,115 @@
+package com.jetcab.configuration;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.PayloadFormat;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.jetcab.service.booking.model.BookingStatus.PENDING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WebSocketConfigurationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TaxiSessionRegistry taxiSessionRegistry;
+
+    private final WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    private StompSession session;
+
+    @AfterEach
+    void tearDown() {
+        if (session != null) {
+            session.disconnect();
+        }
+        stompClient.stop();
+    }
+
+    @Test
+    void binaryEndpoint_shouldSendCborAsBinaryFrames() throws Exception {
+        BlockingQueue<Object> payloads = subscribe("/ws-binary", 61L, byte[].class);
+
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(905L).status(PENDING).build(), List.of(61L))
+                .get(5, TimeUnit.SECONDS);
+
+        Object payload = payloads.poll(5, TimeUnit.SECONDS);
+        assertNotNull(payload);
+        BookingDTO booking = new CBORMapper().readValue((byte[]) payload, BookingDTO.class);
+        assertEquals(905L, booking.getId());
+        assertEquals(PENDING, booking.getStatus());
+    }
+
+    @Test
+    void sockJsEndpoint_shouldFallBackToJsonForCborSessions() throws Exception {
+        BlockingQueue<Object> payloads = subscribe("/ws/websocket", 62L, BookingDTO.class);
+
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(906L).status(PENDING).build(), List.of(62L))
+                .get(5, TimeUnit.SECONDS);
+
+        Object payload = payloads.poll(5, TimeUnit.SECONDS);
+        assertNotNull(payload);
+        assertEquals(906L, ((BookingDTO) payload).getId());
+    }
+
+    /**
+     * Connects asking for CBOR, subscribes to the booking destination of the taxi and waits until the server
+     * registered the subscription. Binary payloads are received as bytes, JSON ones as the given type.
+     */
+    private BlockingQueue<Object> subscribe(String endpoint, Long taxiId, Class<?> payloadType) throws Exception {
+        stompClient.setMessageConverter(new CompositeMessageConverter(List.of(new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add(PayloadFormat.HEADER, "cbor");
+        session = stompClient.connectAsync("ws://localhost:" + port + endpoint, new WebSocketHttpHeaders(), connectHeaders,
+                new StompSessionHandlerAdapter() {
+                }).get(5, TimeUnit.SECONDS);
+
+        BlockingQueue<Object> payloads = new LinkedBlockingQueue<>();
+        session.subscribe("/topic/bookings/" + taxiId, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return payloadType;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                payloads.add(payload);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!taxiSessionRegistry.isConnected(taxiId) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(taxiSessionRegistry.isConnected(taxiId));
+        return payloads;
+    }
+}
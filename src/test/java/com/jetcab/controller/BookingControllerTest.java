@@ -7,9 +7,8 @@ import com.jetcab.service.booking.BookingService;
 import com.jetcab.service.booking.dto.BookingDTO;
 import com.jetcab.service.booking.dto.BookingStatisticsDTO;
 import com.jetcab.service.booking.dto.ModifyBookingDTO;
+import com.jetcab.service.booking.exception.BookingClaimedException;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
-import com.jetcab.service.notification.NotificationService;
-import com.jetcab.service.taxi.TaxiService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +19,6 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.ZonedDateTime;
-import java.util.Collections;
 
 import static com.jetcab.service.booking.model.BookingStatus.CANCELLED;
 import static com.jetcab.service.booking.model.BookingStatus.COMPLETED;
@@ -28,7 +26,6 @@ import static com.jetcab.service.booking.model.BookingStatus.CONFIRMED;
 import static com.jetcab.service.booking.model.BookingStatus.PENDING;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -52,11 +49,6 @@ class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
-    @MockBean
-    private TaxiService taxiService;
-
-    @MockBean
-    private NotificationService notificationService;
 
     private BookingDTO bookingDTO;
     private ModifyBookingDTO modifyBookingDTO;
@@ -74,11 +66,21 @@ class BookingControllerTest {
         modifyBookingDTO.setDropOffLocation(new ModifyLocationDTO(40.730610, -73.935242));
     }
 
+    @Test
+    void getById_success() throws Exception {
+        when(bookingService.getById(anyLong())).thenReturn(bookingDTO);
+
+        mockMvc.perform(get("/api/v1/bookings/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.status").value(PENDING.toString()));
+
+        verify(bookingService).getById(1L);
+    }
+
     @Test
     void createBooking_success() throws Exception {
         when(bookingService.createBooking(any(ModifyBookingDTO.class))).thenReturn(bookingDTO);
-        when(taxiService.getAvailableTaxiIDs()).thenReturn(Collections.singletonList(1L));
-        doNothing().when(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
 
         mockMvc.perform(post("/api/v1/bookings")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -88,8 +90,6 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status").value(PENDING.toString()));
 
         verify(bookingService).createBooking(any(ModifyBookingDTO.class));
-        verify(taxiService).getAvailableTaxiIDs();
-        verify(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
     }
 
     @Test
@@ -102,8 +102,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -116,8 +114,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -130,8 +126,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -144,8 +138,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -158,8 +150,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -172,8 +162,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -186,15 +174,11 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
     void updateBooking_success() throws Exception {
         when(bookingService.updateBooking(anyLong(), any(ModifyBookingDTO.class))).thenReturn(bookingDTO);
-        when(taxiService.getAvailableTaxiIDs()).thenReturn(Collections.singletonList(1L));
-        doNothing().when(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
 
         mockMvc.perform(put("/api/v1/bookings/{bookingId}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -204,8 +188,6 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status").value(PENDING.toString()));
 
         verify(bookingService).updateBooking(anyLong(), any(ModifyBookingDTO.class));
-        verify(taxiService).getAvailableTaxiIDs();
-        verify(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
     }
 
     @Test
@@ -218,8 +200,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -232,8 +212,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -246,8 +224,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -260,8 +236,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -274,8 +248,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -288,8 +260,6 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -302,16 +272,12 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
 
         verifyNoInteractions(bookingService);
-        verifyNoInteractions(taxiService);
-        verifyNoInteractions(notificationService);
     }
 
     @Test
     void cancelBooking_success() throws Exception {
         bookingDTO.setStatus(CANCELLED);
         when(bookingService.cancelBooking(anyLong())).thenReturn(bookingDTO);
-        when(taxiService.getAvailableTaxiIDs()).thenReturn(Collections.singletonList(1L));
-        doNothing().when(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
 
         mockMvc.perform(delete("/api/v1/bookings/{bookingId}", 1L))
                 .andExpect(status().isOk())
@@ -319,16 +285,12 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status").value(CANCELLED.toString()));
 
         verify(bookingService).cancelBooking(anyLong());
-        verify(taxiService).getAvailableTaxiIDs();
-        verify(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
     }
 
     @Test
     void takeBooking_success() throws Exception {
         bookingDTO.setStatus(CONFIRMED);
         when(bookingService.takeBooking(anyLong(), anyLong())).thenReturn(bookingDTO);
-        when(taxiService.getAvailableTaxiIDs()).thenReturn(Collections.singletonList(1L));
-        doNothing().when(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
 
         mockMvc.perform(put("/api/v1/bookings/{bookingId}/take-booking/{taxiId}", 1L, 1L))
                 .andExpect(status().isOk())
@@ -336,8 +298,15 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status").value(CONFIRMED.toString()));
 
         verify(bookingService).takeBooking(anyLong(), anyLong());
-        verify(taxiService).getAvailableTaxiIDs();
-        verify(notificationService).publishBookingToAvailableTaxis(any(BookingDTO.class), any());
+    }
+
+    @Test
+    void takeBooking_conflictWhenClaimedByAnotherTaxi() throws Exception {
+        when(bookingService.takeBooking(anyLong(), anyLong())).thenThrow(new BookingClaimedException());
+
+        mockMvc.perform(put("/api/v1/bookings/{bookingId}/take-booking/{taxiId}", 1L, 2L))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(BookingClaimedException.MESSAGE_KEY));
     }
 
     @Test
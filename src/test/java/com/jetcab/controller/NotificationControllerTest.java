@@ -0,0 +1,50 @@
+package com.jetcab.controller;
+
+import com.jetcab.configuration.TestConfiguration;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.dto.DeadLetterDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static java.util.Collections.singletonList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(NotificationController.class)
+@Import(TestConfiguration.class)
+class NotificationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Test
+    void getDeadLetters() throws Exception {
+        DeadLetterDTO deadLetter = DeadLetterDTO.builder()
+                .taxiId(78L)
+                .destination("/topic/bookings/78")
+                .payload("{\"id\":5}")
+                .attempts(3)
+                .error("network issue")
+                .failedAt(Instant.parse("2024-08-01T10:15:30Z"))
+                .build();
+        when(notificationService.getDeadLetters()).thenReturn(singletonList(deadLetter));
+
+        mockMvc.perform(get("/api/v1/notifications/dead-letters"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].taxiId").value(78))
+                .andExpect(jsonPath("$[0].destination").value("/topic/bookings/78"))
+                .andExpect(jsonPath("$[0].attempts").value(3))
+                .andExpect(jsonPath("$[0].error").value("network issue"));
+    }
+}
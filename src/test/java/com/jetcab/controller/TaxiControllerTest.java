@@ -5,10 +5,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jetcab.common.PageableList;
 import com.jetcab.configuration.TestConfiguration;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
+import com.jetcab.service.region.RegionService;
+import com.jetcab.service.region.dto.RegionAssignmentDTO;
 import com.jetcab.service.taxi.TaxiService;
+import com.jetcab.service.location.dto.LocationDTO;
 import com.jetcab.service.taxi.dto.ModifyTaxiDTO;
+import com.jetcab.service.taxi.dto.NearbyTaxiDTO;
 import com.jetcab.service.taxi.dto.TaxiDTO;
 import com.jetcab.service.taxi.model.TaxiStatus;
+import com.jetcab.service.trail.TrailService;
+import com.jetcab.service.trail.dto.TrailPointDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +26,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
 import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
 import static java.util.Collections.singletonList;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +43,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -53,6 +63,12 @@ class TaxiControllerTest {
     @MockBean
     private TaxiService taxiService;
 
+    @MockBean
+    private TrailService trailService;
+
+    @MockBean
+    private RegionService regionService;
+
     private TaxiDTO taxiDTO;
     private ModifyTaxiDTO modifyTaxiDTO;
 
@@ -95,6 +111,83 @@ class TaxiControllerTest {
                 .andExpect(jsonPath("$.status").value(AVAILABLE.toString()));
     }
 
+    @Test
+    void findNearest_success() throws Exception {
+        NearbyTaxiDTO nearbyTaxi = NearbyTaxiDTO.builder()
+                .id(1L)
+                .licensePlate(LICENSE_PLATE)
+                .status(AVAILABLE)
+                .location(LocationDTO.builder().latitude(25.2).longitude(55.3).build())
+                .distanceKm(1.5)
+                .build();
+        when(taxiService.findNearestAvailable(25.2, 55.3, 3, 10.0)).thenReturn(singletonList(nearbyTaxi));
+
+        mockMvc.perform(get("/api/v1/taxis/nearest")
+                        .param("lat", "25.2")
+                        .param("lon", "55.3")
+                        .param("k", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].distanceKm").value(1.5));
+
+        verify(taxiService).findNearestAvailable(25.2, 55.3, 3, 10.0);
+    }
+
+    @Test
+    void getTrail_success() throws Exception {
+        TrailPointDTO point = new TrailPointDTO(Instant.parse("2024-08-01T10:00:00Z"), 25.2, 55.3);
+        when(trailService.getTrail(eq(1L), any(ZonedDateTime.class), any(ZonedDateTime.class))).thenReturn(singletonList(point));
+
+        mockMvc.perform(get("/api/v1/taxis/1/trail")
+                        .param("from", "2024-08-01T00:00:00Z")
+                        .param("to", "2024-08-02T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].latitude").value(25.2))
+                .andExpect(jsonPath("$[0].longitude").value(55.3));
+
+        verify(trailService).getTrail(eq(1L), any(ZonedDateTime.class), any(ZonedDateTime.class));
+    }
+
+    @Test
+    void getEncodedTrail_success() throws Exception {
+        byte[] encoded = {1, 2, 3};
+        when(trailService.getEncodedTrail(eq(1L), any(ZonedDateTime.class), any(ZonedDateTime.class), eq(5.0))).thenReturn(encoded);
+
+        mockMvc.perform(get("/api/v1/taxis/1/trail/encoded")
+                        .param("from", "2024-08-01T00:00:00Z")
+                        .param("to", "2024-08-02T00:00:00Z")
+                        .param("toleranceM", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(content().bytes(encoded));
+    }
+
+    @Test
+    void getRegionAssignment_success() throws Exception {
+        RegionAssignmentDTO assignment = RegionAssignmentDTO.builder()
+                .taxiId(1L)
+                .region("/topic/regions/1_2")
+                .topics(singletonList("/topic/regions/1_2"))
+                .build();
+        when(regionService.getAssignment(1L)).thenReturn(assignment);
+
+        mockMvc.perform(get("/api/v1/taxis/1/regions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.region").value("/topic/regions/1_2"))
+                .andExpect(jsonPath("$.topics[0]").value("/topic/regions/1_2"));
+    }
+
+    @Test
+    void findNearest_invalidK() throws Exception {
+        mockMvc.perform(get("/api/v1/taxis/nearest")
+                        .param("lat", "25.2")
+                        .param("lon", "55.3")
+                        .param("k", "0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(taxiService);
+    }
+
     @Test
     void createTaxi_success() throws Exception {
         when(taxiService.createTaxi(any(ModifyTaxiDTO.class))).thenReturn(taxiDTO);
@@ -1,9 +1,13 @@
 package com.jetcab.service.booking;
 
 import com.jetcab.persistence.BookingRepository;
+import com.jetcab.service.booking.claim.BookingClaimArbiter;
 import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
 import com.jetcab.service.booking.dto.BookingStatisticsDTO;
 import com.jetcab.service.booking.dto.ModifyBookingDTO;
+import com.jetcab.service.booking.event.BookingChangedEvent;
+import com.jetcab.service.booking.exception.BookingClaimedException;
 import com.jetcab.service.booking.exception.BookingNotFoundException;
 import com.jetcab.service.booking.exception.BookingStatusChangeException;
 import com.jetcab.service.booking.exception.CancelBookingException;
@@ -12,24 +16,38 @@ import com.jetcab.service.booking.exception.UpdateBookingException;
 import com.jetcab.service.booking.mapper.BookingMapper;
 import com.jetcab.service.booking.model.Booking;
 import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.eta.EtaService;
 import com.jetcab.service.location.LocationService;
+import com.jetcab.service.location.dto.LocationDTO;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
 import com.jetcab.service.location.model.Location;
 import com.jetcab.service.passenger.PassengerService;
 import com.jetcab.service.passenger.exception.PassengerNotFoundException;
 import com.jetcab.service.passenger.model.Passenger;
 import com.jetcab.service.taxi.TaxiService;
+import com.jetcab.service.taxi.exception.TaxiNotAvailableException;
+import com.jetcab.service.taxi.exception.TaxiNotFoundException;
 import com.jetcab.service.taxi.model.Taxi;
+import com.jetcab.service.taxi.model.TaxiStatus;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.jetcab.service.booking.model.BookingStatus.CANCELLED;
@@ -43,7 +61,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -61,6 +85,9 @@ class BookingServiceImplTest {
     @Mock
     private BookingMapper bookingMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Mock
     private LocationService locationService;
 
@@ -70,6 +97,15 @@ class BookingServiceImplTest {
     @Mock
     private TaxiService taxiService;
 
+    @Mock
+    private EtaService etaService;
+
+    @Spy
+    private BookingClaimArbiter bookingClaimArbiter = new BookingClaimArbiter();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -115,7 +151,8 @@ class BookingServiceImplTest {
             when(passengerService.getById(anyLong())).thenReturn(new Passenger());
             when(locationService.findOrCreate(any(ModifyLocationDTO.class))).thenReturn(new Location());
             when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(new Booking());
-            when(bookingMapper.map(any(Booking.class))).thenReturn(new BookingDTO());
+            BookingDTO bookingDTO = new BookingDTO();
+            when(bookingMapper.map(any(Booking.class))).thenReturn(bookingDTO);
 
             bookingService.createBooking(createBookingDto());
 
@@ -123,6 +160,7 @@ class BookingServiceImplTest {
             verify(locationService, times(2)).findOrCreate(any(ModifyLocationDTO.class));
             verify(bookingRepository).saveAndFlush(bookingCaptor.capture());
             verify(bookingMapper).map(any(Booking.class));
+            verify(eventPublisher).publishEvent(new BookingChangedEvent(bookingDTO));
 
             Booking booking = bookingCaptor.getValue();
             assertNotNull(booking);
@@ -214,6 +252,7 @@ class BookingServiceImplTest {
 
             assertThrows(BookingNotFoundException.class, () -> bookingService.updateBookingStatus(BOOKING_ID, CONFIRMED));
 
+            verify(bookingRepository).updateStatus(BOOKING_ID, EnumSet.of(PENDING), CONFIRMED);
             verify(bookingRepository).findBookingById(anyLong());
             verifyNoMoreInteractions(bookingRepository);
             verifyNoInteractions(bookingMapper);
@@ -227,6 +266,7 @@ class BookingServiceImplTest {
 
             assertThrows(BookingStatusChangeException.class, () -> bookingService.updateBookingStatus(BOOKING_ID, CONFIRMED));
 
+            verify(bookingRepository).updateStatus(BOOKING_ID, EnumSet.of(PENDING), CONFIRMED);
             verify(bookingRepository).findBookingById(anyLong());
             verifyNoMoreInteractions(bookingRepository);
             verifyNoInteractions(bookingMapper);
@@ -235,20 +275,17 @@ class BookingServiceImplTest {
         @Test
         void shouldUpdateBookingStatusSuccessfully() {
             Booking booking = new Booking();
-            booking.setStatus(CONFIRMED);
+            booking.setStatus(COMPLETED);
+            when(bookingRepository.updateStatus(BOOKING_ID, EnumSet.of(CONFIRMED), COMPLETED)).thenReturn(1);
             when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
-            when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
             when(bookingMapper.map(any(Booking.class))).thenReturn(new BookingDTO());
 
             BookingDTO result = bookingService.updateBookingStatus(BOOKING_ID, COMPLETED);
 
             assertNotNull(result);
             verify(bookingRepository).findBookingById(anyLong());
-            verify(bookingRepository).saveAndFlush(bookingCaptor.capture());
-            verify(bookingMapper).map(any(Booking.class));
-
-            Booking captoredBooking = bookingCaptor.getValue();
-            assertEquals(COMPLETED, captoredBooking.getStatus());
+            verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+            verify(bookingMapper).map(booking);
         }
     }
 
@@ -261,6 +298,7 @@ class BookingServiceImplTest {
 
             assertThrows(BookingNotFoundException.class, () -> bookingService.cancelBooking(BOOKING_ID));
 
+            verify(bookingRepository).updateStatus(BOOKING_ID, EnumSet.of(PENDING, CONFIRMED), CANCELLED);
             verify(bookingRepository).findBookingById(anyLong());
             verifyNoMoreInteractions(bookingRepository);
             verifyNoInteractions(bookingMapper);
@@ -274,6 +312,7 @@ class BookingServiceImplTest {
 
             assertThrows(CancelBookingException.class, () -> bookingService.cancelBooking(BOOKING_ID));
 
+            verify(bookingRepository).updateStatus(BOOKING_ID, EnumSet.of(PENDING, CONFIRMED), CANCELLED);
             verify(bookingRepository).findBookingById(anyLong());
             verifyNoMoreInteractions(bookingRepository);
             verifyNoInteractions(bookingMapper);
@@ -282,35 +321,103 @@ class BookingServiceImplTest {
         @Test
         void shouldCancelBookingSuccessfully() {
             Booking booking = new Booking();
-            booking.setStatus(CONFIRMED);
+            booking.setStatus(CANCELLED);
+            when(bookingRepository.updateStatus(BOOKING_ID, EnumSet.of(PENDING, CONFIRMED), CANCELLED)).thenReturn(1);
             when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
-            when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
             when(bookingMapper.map(any(Booking.class))).thenReturn(new BookingDTO());
 
             BookingDTO result = bookingService.cancelBooking(BOOKING_ID);
 
             assertNotNull(result);
             verify(bookingRepository).findBookingById(anyLong());
-            verify(bookingRepository).saveAndFlush(bookingCaptor.capture());
-            verify(bookingMapper).map(any(Booking.class));
+            verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+            verify(bookingMapper).map(booking);
+        }
 
-            Booking captoredBooking = bookingCaptor.getValue();
-            assertEquals(CANCELLED, captoredBooking.getStatus());
+        @Test
+        void shouldPublishOnlyChangedFields() {
+            Location pickup = new Location();
+            pickup.setId(11L);
+            pickup.setLatitude(25.2);
+            pickup.setLongitude(55.3);
+            Booking booking = new Booking();
+            booking.setStatus(CANCELLED);
+            booking.setPickupLocation(pickup);
+            when(bookingRepository.updateStatus(anyLong(), any(), eq(CANCELLED))).thenReturn(1);
+            when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
+            BookingDTO cancelled = BookingDTO.builder()
+                    .id(BOOKING_ID)
+                    .status(CANCELLED)
+                    .version(2L)
+                    .pickupLocation(LocationDTO.builder().id(11L).latitude(25.2).longitude(55.3).build())
+                    .build();
+            when(bookingMapper.map(any(Booking.class))).thenReturn(cancelled);
+
+            bookingService.cancelBooking(BOOKING_ID);
+
+            BookingDeltaDTO expected = BookingDeltaDTO.builder().bookingId(BOOKING_ID).version(2L).status(CANCELLED).build();
+            verify(eventPublisher).publishEvent(new BookingChangedEvent(cancelled, expected));
         }
     }
 
     @Nested
     class TakeBooking {
 
+        @BeforeEach
+        void setUp() {
+            lenient().when(transactionTemplate.execute(any()))
+                    .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        }
+
+        @Test
+        void shouldRejectConcurrentClaimWithoutTouchingDatabase() {
+            bookingClaimArbiter.tryClaim(BOOKING_ID, 1L);
+
+            assertThrows(BookingClaimedException.class, () -> bookingService.takeBooking(BOOKING_ID, 234L));
+
+            verifyNoInteractions(transactionTemplate);
+            verifyNoInteractions(bookingRepository);
+            verifyNoInteractions(taxiService);
+            assertEquals(1, bookingClaimArbiter.size());
+        }
+
+        @Test
+        void shouldThrowTaxiNotFoundException() {
+            when(taxiService.changeStatus(234L, AVAILABLE, BOOKED)).thenReturn(Optional.empty());
+            when(taxiService.findById(234L)).thenThrow(new TaxiNotFoundException());
+
+            assertThrows(TaxiNotFoundException.class, () -> bookingService.takeBooking(BOOKING_ID, 234L));
+            assertEquals(0, bookingClaimArbiter.size());
+
+            verifyNoInteractions(bookingRepository);
+            verifyNoInteractions(bookingMapper);
+        }
+
+        @Test
+        void shouldThrowTaxiNotAvailableExceptionWithoutTouchingBooking() {
+            when(taxiService.changeStatus(234L, AVAILABLE, BOOKED)).thenReturn(Optional.empty());
+            when(taxiService.findById(234L)).thenReturn(new Taxi());
+
+            TaxiNotAvailableException exception = assertThrows(TaxiNotAvailableException.class,
+                    () -> bookingService.takeBooking(BOOKING_ID, 234L));
+            assertEquals(TaxiNotAvailableException.MESSAGE_KEY, exception.getMessage());
+
+            verifyNoInteractions(bookingRepository);
+            verifyNoInteractions(bookingMapper);
+        }
+
         @Test
         void shouldThrowBookingNotFoundException() {
-            when(bookingRepository.findBookingForUpdate(anyLong())).thenReturn(Optional.empty());
+            Taxi taxi = new Taxi();
+            when(taxiService.changeStatus(234L, AVAILABLE, BOOKED)).thenReturn(Optional.of(taxi));
+            when(bookingRepository.findBookingById(anyLong())).thenThrow(new BookingNotFoundException());
 
             assertThrows(BookingNotFoundException.class, () -> bookingService.takeBooking(BOOKING_ID, 234L));
+            assertEquals(0, bookingClaimArbiter.size());
 
-            verify(bookingRepository).findBookingForUpdate(anyLong());
+            verify(bookingRepository).confirm(eq(BOOKING_ID), eq(taxi), any(ZonedDateTime.class));
+            verify(bookingRepository).findBookingById(anyLong());
             verifyNoMoreInteractions(bookingRepository);
-            verifyNoInteractions(taxiService);
             verifyNoInteractions(bookingMapper);
         }
 
@@ -318,41 +425,44 @@ class BookingServiceImplTest {
         void shouldThrowInvalidBookingStateExceptionAsBookingNotAvailableAnymore() {
             Booking booking = new Booking();
             booking.setStatus(CONFIRMED);
-            when(bookingRepository.findBookingForUpdate(anyLong())).thenReturn(Optional.of(booking));
+            when(taxiService.changeStatus(23L, AVAILABLE, BOOKED)).thenReturn(Optional.of(new Taxi()));
+            when(bookingRepository.confirm(anyLong(), any(Taxi.class), any(ZonedDateTime.class))).thenReturn(0);
+            when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
 
             InvalidBookingStateException exception = assertThrows(InvalidBookingStateException.class, () -> bookingService.takeBooking(BOOKING_ID, 23L));
             assertEquals("exception.conflict.booking-not-available", exception.getMessage());
 
-            verify(bookingRepository).findBookingForUpdate(anyLong());
-            verifyNoMoreInteractions(bookingRepository);
+            verify(bookingRepository).findBookingById(anyLong());
             verifyNoInteractions(bookingMapper);
         }
 
         @Test
         void shouldTakeBookingSuccessfully() {
-            Booking booking = new Booking();
-            booking.setStatus(PENDING);
             Taxi taxi = new Taxi();
-            taxi.setStatus(AVAILABLE);
-            when(bookingRepository.findBookingForUpdate(anyLong())).thenReturn(Optional.of(booking));
-            when(taxiService.findById(anyLong())).thenReturn(taxi);
-            when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
+            taxi.setStatus(BOOKED);
+            taxi.setLatitude(25.21);
+            taxi.setLongitude(55.31);
+            Booking booking = new Booking();
+            booking.setStatus(CONFIRMED);
+            booking.setTaxi(taxi);
+            booking.setPickupLocation(createLocation(25.2, 55.3));
+            when(taxiService.changeStatus(453L, AVAILABLE, BOOKED)).thenReturn(Optional.of(taxi));
+            when(bookingRepository.confirm(eq(BOOKING_ID), eq(taxi), any(ZonedDateTime.class))).thenReturn(1);
+            when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
+            when(etaService.estimateSeconds(25.21, 55.31, 25.2, 55.3)).thenReturn(180);
             when(bookingMapper.map(any(Booking.class))).thenReturn(new BookingDTO());
 
             BookingDTO result = bookingService.takeBooking(BOOKING_ID, 453L);
 
             assertNotNull(result);
-            verify(bookingRepository).findBookingForUpdate(anyLong());
-            verify(taxiService).findById(anyLong());
-            verify(taxiService).update(taxiCaptor.capture());
-            verify(bookingRepository).saveAndFlush(bookingCaptor.capture());
-            verify(bookingMapper).map(any(Booking.class));
-
-            Taxi captoredTaxi = taxiCaptor.getValue();
-            assertEquals(BOOKED, captoredTaxi.getStatus());
-
-            Booking captoredBooking = bookingCaptor.getValue();
-            assertEquals(CONFIRMED, captoredBooking.getStatus());
+            assertEquals(0, bookingClaimArbiter.size());
+            InOrder inOrder = inOrder(taxiService, bookingRepository);
+            inOrder.verify(taxiService).changeStatus(453L, AVAILABLE, BOOKED);
+            inOrder.verify(bookingRepository).confirm(eq(BOOKING_ID), eq(taxi), any(ZonedDateTime.class));
+            verify(taxiService, never()).update(any(Taxi.class));
+            verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+            verify(bookingMapper).map(booking);
+            assertEquals(180, booking.getPickupEtaSeconds());
         }
     }
 
@@ -382,34 +492,143 @@ class BookingServiceImplTest {
 
             verify(bookingRepository).findBookingById(anyLong());
             verifyNoMoreInteractions(bookingRepository);
+            verifyNoInteractions(taxiService);
+            verifyNoInteractions(bookingMapper);
+        }
+
+        @Test
+        void shouldThrowInvalidBookingStateExceptionWhenCompletedConcurrently() {
+            Taxi taxi = new Taxi();
+            taxi.setId(7L);
+            Booking booking = new Booking();
+            booking.setStatus(CONFIRMED);
+            booking.setTaxi(taxi);
+            when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
+            when(bookingRepository.complete(eq(BOOKING_ID), any(ZonedDateTime.class))).thenReturn(0);
+
+            assertThrows(InvalidBookingStateException.class, () -> bookingService.completeBooking(BOOKING_ID));
+
             verifyNoInteractions(bookingMapper);
         }
 
         @Test
         void completeBookingSuccessfully() {
             Taxi taxi = new Taxi();
+            taxi.setId(7L);
             taxi.setStatus(BOOKED);
             Booking booking = new Booking();
             booking.setStatus(CONFIRMED);
             booking.setTaxi(taxi);
 
             when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
-            when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
+            when(taxiService.changeStatus(7L, BOOKED, AVAILABLE)).thenReturn(Optional.of(taxi));
+            when(bookingRepository.complete(eq(BOOKING_ID), any(ZonedDateTime.class))).thenReturn(1);
             when(bookingMapper.map(any(Booking.class))).thenReturn(new BookingDTO());
 
             BookingDTO result = bookingService.completeBooking(BOOKING_ID);
 
             assertNotNull(result);
-            verify(bookingRepository).findBookingById(anyLong());
-            verify(taxiService).update(taxiCaptor.capture());
-            verify(bookingRepository).saveAndFlush(bookingCaptor.capture());
-            verify(bookingMapper).map(any(Booking.class));
+            InOrder inOrder = inOrder(taxiService, bookingRepository);
+            inOrder.verify(taxiService).changeStatus(7L, BOOKED, AVAILABLE);
+            inOrder.verify(bookingRepository).complete(eq(BOOKING_ID), any(ZonedDateTime.class));
+            verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+            verify(taxiService, never()).update(any(Taxi.class));
+            verify(bookingMapper).map(booking);
+            verifyNoInteractions(etaService);
+        }
+
+        @Test
+        void shouldRecordTripDuration() {
+            Booking booking = new Booking();
+            booking.setStatus(CONFIRMED);
+            booking.setPickupLocation(createLocation(25.2, 55.3));
+            booking.setDropOffLocation(createLocation(25.1, 55.2));
+            booking.setConfirmedAt(now().minusMinutes(30));
+            booking.setCompletedAt(now());
+            booking.setPickupEtaSeconds(300);
+
+            when(bookingRepository.complete(eq(BOOKING_ID), any(ZonedDateTime.class))).thenReturn(1);
+            when(bookingRepository.findBookingById(anyLong())).thenReturn(booking);
+            when(bookingMapper.map(any(Booking.class))).thenReturn(new BookingDTO());
+
+            bookingService.completeBooking(BOOKING_ID);
 
-            Taxi captoredTaxi = taxiCaptor.getValue();
-            assertEquals(AVAILABLE, captoredTaxi.getStatus());
+            verify(etaService).recordTrip(eq(25.2), eq(55.3), eq(25.1), eq(55.2), longThat(seconds -> seconds >= 1499 && seconds <= 1501));
+        }
+    }
+
+    @Nested
+    class ConfirmAssignments {
 
-            Booking captoredBooking = bookingCaptor.getValue();
-            assertEquals(COMPLETED, captoredBooking.getStatus());
+        @Test
+        void shouldDoNothingForEmptyAssignment() {
+            List<BookingDTO> result = bookingService.confirmAssignments(Map.of());
+
+            assertEquals(List.of(), result);
+            verifyNoInteractions(bookingRepository);
+            verifyNoInteractions(taxiService);
+        }
+
+        @Test
+        void shouldConfirmOnlyPendingBookingsWithAvailableTaxis() {
+            Booking pending = createBooking(1L, PENDING);
+            Booking alreadyConfirmed = createBooking(2L, CONFIRMED);
+            Booking pendingWithBookedTaxi = createBooking(3L, PENDING);
+            Taxi availableTaxi = createTaxi(10L, AVAILABLE);
+            Taxi otherAvailableTaxi = createTaxi(20L, AVAILABLE);
+            Taxi bookedTaxi = createTaxi(30L, BOOKED);
+            Map<Long, Long> assignment = Map.of(1L, 10L, 2L, 20L, 3L, 30L);
+
+            when(taxiService.findAllByIdForUpdate(any())).thenReturn(List.of(availableTaxi, otherAvailableTaxi, bookedTaxi));
+            when(bookingRepository.findAllBookingsForUpdate(any())).thenReturn(List.of(pending, alreadyConfirmed, pendingWithBookedTaxi));
+            when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(bookingMapper.map(anyList())).thenReturn(List.of(BookingDTO.builder().id(1L).status(CONFIRMED).build()));
+            Taxi bookedAvailableTaxi = createTaxi(10L, BOOKED);
+            when(taxiService.changeStatus(10L, AVAILABLE, BOOKED)).thenReturn(Optional.of(bookedAvailableTaxi));
+
+            List<BookingDTO> result = bookingService.confirmAssignments(assignment);
+
+            assertEquals(1, result.size());
+            verify(taxiService).changeStatus(10L, AVAILABLE, BOOKED);
+            verify(taxiService, never()).changeStatus(eq(20L), any(), any());
+            verify(taxiService, never()).changeStatus(eq(30L), any(), any());
+            verify(taxiService, never()).update(any(Taxi.class));
+            assertEquals(CONFIRMED, pending.getStatus());
+            assertEquals(bookedAvailableTaxi, pending.getTaxi());
+            assertEquals(PENDING, pendingWithBookedTaxi.getStatus());
+        }
+
+        @Test
+        void shouldSkipBookingWhoseTaxiWasTakenMeanwhile() {
+            Booking first = createBooking(1L, PENDING);
+            Booking second = createBooking(2L, PENDING);
+            Taxi taxi = createTaxi(10L, AVAILABLE);
+
+            when(taxiService.findAllByIdForUpdate(any())).thenReturn(List.of(taxi));
+            when(bookingRepository.findAllBookingsForUpdate(any())).thenReturn(List.of(first, second));
+            when(taxiService.changeStatus(10L, AVAILABLE, BOOKED)).thenReturn(Optional.of(createTaxi(10L, BOOKED)))
+                    .thenReturn(Optional.empty());
+            when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            bookingService.confirmAssignments(Map.of(1L, 10L, 2L, 10L));
+
+            verify(bookingRepository).saveAllAndFlush(List.of(first));
+            assertEquals(CONFIRMED, first.getStatus());
+            assertEquals(PENDING, second.getStatus());
+        }
+
+        private Booking createBooking(Long id, BookingStatus status) {
+            Booking booking = new Booking();
+            booking.setId(id);
+            booking.setStatus(status);
+            return booking;
+        }
+
+        private Taxi createTaxi(Long id, TaxiStatus status) {
+            Taxi taxi = new Taxi();
+            taxi.setId(id);
+            taxi.setStatus(status);
+            return taxi;
         }
     }
 
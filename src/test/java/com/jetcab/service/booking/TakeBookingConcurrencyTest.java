@@ -0,0 +1,150 @@
+package com.jetcab.service.booking;
+
+import com.jetcab.common.exception.ConflictException;
+import com.jetcab.persistence.BookingRepository;
+import com.jetcab.persistence.LocationRepository;
+import com.jetcab.persistence.OutboxRepository;
+import com.jetcab.persistence.PassengerRepository;
+import com.jetcab.persistence.TaxiRepository;
+import com.jetcab.service.booking.model.Booking;
+import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.dispatch.DispatchService;
+import com.jetcab.service.taxi.model.Taxi;
+import com.jetcab.service.taxi.model.TaxiStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "jetcab.notification.outbox.poll-interval-ms=3600000")
+class TakeBookingConcurrencyTest {
+
+    private static final int TAXIS = 40;
+    private static final int BOOKINGS = 60;
+    private static final int CLAIMS = 5000;
+    private static final int THREADS = 32;
+
+    @MockBean
+    private DispatchService dispatchService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TaxiRepository taxiRepository;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    private final List<Long> taxiIds = new ArrayList<>();
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < TAXIS; i++) {
+            Taxi taxi = new Taxi();
+            taxi.setLicensePlate("STRESS-" + i);
+            taxi.setStatus(TaxiStatus.AVAILABLE);
+            taxi.setLatitude(25.2 + i * 0.001);
+            taxi.setLongitude(55.3);
+            taxiIds.add(taxiRepository.save(taxi).getId());
+        }
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setPassenger(passengerRepository.findPassengerById(1L));
+            booking.setPickupLocation(locationRepository.findById(1L).orElseThrow());
+            booking.setDropOffLocation(locationRepository.findById(2L).orElseThrow());
+            booking.setStatus(BookingStatus.PENDING);
+            booking.setBookedAt(ZonedDateTime.now());
+            bookingIds.add(bookingRepository.save(booking).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllById(bookingIds);
+        taxiRepository.deleteAllById(taxiIds);
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void parallelClaimsShouldNeverAssignBookingOrTaxiTwice() throws InterruptedException {
+        Map<Long, Long> taxiByBooking = new ConcurrentHashMap<>();
+        Map<Long, Long> bookingByTaxi = new ConcurrentHashMap<>();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        AtomicInteger doubleAssignments = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < CLAIMS; i++) {
+            Long bookingId = bookingIds.get(ThreadLocalRandom.current().nextInt(BOOKINGS));
+            Long taxiId = taxiIds.get(ThreadLocalRandom.current().nextInt(TAXIS));
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    bookingService.takeBooking(bookingId, taxiId);
+                    if (taxiByBooking.putIfAbsent(bookingId, taxiId) != null
+                            | bookingByTaxi.putIfAbsent(taxiId, bookingId) != null) {
+                        doubleAssignments.incrementAndGet();
+                    }
+                } catch (ConflictException e) {
+                    // lost the race for the booking or the taxi
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertNull(unexpected.peek());
+        assertEquals(0, doubleAssignments.get());
+        assertTrue(taxiByBooking.size() > 0);
+
+        List<Booking> bookings = bookingRepository.findAllById(bookingIds);
+        for (Booking booking : bookings) {
+            Long winner = taxiByBooking.get(booking.getId());
+            if (winner == null) {
+                assertEquals(BookingStatus.PENDING, booking.getStatus());
+                assertNull(booking.getTaxi());
+            } else {
+                assertEquals(BookingStatus.CONFIRMED, booking.getStatus());
+                assertEquals(winner, booking.getTaxi().getId());
+            }
+        }
+        for (Taxi taxi : taxiRepository.findAllById(taxiIds)) {
+            TaxiStatus expected = bookingByTaxi.containsKey(taxi.getId()) ? TaxiStatus.BOOKED : TaxiStatus.AVAILABLE;
+            assertEquals(expected, taxi.getStatus());
+        }
+    }
+}
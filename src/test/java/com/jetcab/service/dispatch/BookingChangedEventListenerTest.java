@@ -0,0 +1,52 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.event.BookingChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@SpringBootTest(properties = "jetcab.notification.delivery=DIRECT")
+class BookingChangedEventListenerTest {
+
+    @MockBean
+    private DispatchService dispatchService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shouldDispatchBookingAfterCommit() {
+        BookingDTO booking = BookingDTO.builder().id(1L).build();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new BookingChangedEvent(booking));
+            verifyNoInteractions(dispatchService);
+        });
+
+        verify(dispatchService, timeout(1000)).publishBooking(booking, null);
+    }
+
+    @Test
+    void shouldNotDispatchBookingOfRolledBackTransaction() {
+        BookingDTO booking = BookingDTO.builder().id(2L).build();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new BookingChangedEvent(booking));
+            status.setRollbackOnly();
+        });
+
+        verify(dispatchService, after(200).never()).publishBooking(booking, null);
+    }
+}
@@ -0,0 +1,244 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.NotificationProperties;
+import com.jetcab.service.notification.offer.OfferRegistry;
+import com.jetcab.service.region.RegionService;
+import com.jetcab.service.taxi.TaxiService;
+import com.jetcab.service.taxi.dto.TaxiDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.jetcab.service.booking.model.BookingStatus.CANCELLED;
+import static com.jetcab.service.booking.model.BookingStatus.CONFIRMED;
+import static com.jetcab.service.booking.model.BookingStatus.PENDING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchServiceImplTest {
+
+    @Mock
+    private TaxiService taxiService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private WaveDispatcher waveDispatcher;
+
+    @Mock
+    private RegionService regionService;
+
+    private DispatchProperties properties;
+    private OfferRegistry offerRegistry;
+    private DispatchServiceImpl dispatchService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DispatchProperties();
+        offerRegistry = new OfferRegistry(new NotificationProperties());
+        dispatchService = new DispatchServiceImpl(properties, taxiService, notificationService, offerRegistry, waveDispatcher, regionService);
+        lenient().when(notificationService.publishBookingToAvailableTaxis(any(), anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(notificationService.publishBookingToRegion(any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(waveDispatcher.offer(any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void publishBooking_shouldNotifyAllAvailableTaxis() {
+        BookingDTO booking = createBooking();
+        when(taxiService.getAvailableTaxiIDs()).thenReturn(List.of(1L, 2L));
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(taxiService).getAvailableTaxiIDs();
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(1L, 2L));
+        verifyNoMoreInteractions(taxiService);
+    }
+
+    @Test
+    void publishBooking_shouldNotifyOnlyNearbyTaxisInProximityMode() {
+        properties.setFanOutMode(FanOutMode.PROXIMITY);
+        properties.setFanOutRadiusKm(3.0);
+        BookingDTO booking = createBooking();
+        when(taxiService.getAvailableTaxiIDsWithin(25.2, 55.3, 3.0)).thenReturn(List.of(2L));
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(taxiService).getAvailableTaxiIDsWithin(anyDouble(), anyDouble(), anyDouble());
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(2L));
+        verifyNoMoreInteractions(taxiService);
+    }
+
+    @Test
+    void publishBooking_shouldNotifyOnlyConnectedTaxisInConnectedMode() {
+        properties.setFanOutMode(FanOutMode.CONNECTED);
+        BookingDTO booking = createBooking();
+        when(taxiService.getAvailableConnectedTaxiIDs()).thenReturn(List.of(2L));
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(taxiService).getAvailableConnectedTaxiIDs();
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(2L));
+        verifyNoMoreInteractions(taxiService);
+    }
+
+    @Test
+    void publishBooking_shouldPublishOnceToPickupRegionInRegionMode() {
+        properties.setFanOutMode(FanOutMode.REGION);
+        BookingDTO booking = createBooking();
+        when(regionService.getTopic(25.2, 55.3)).thenReturn("/topic/regions/1_2");
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(notificationService).publishBookingToRegion(booking, "/topic/regions/1_2");
+        verifyNoInteractions(taxiService);
+    }
+
+    @Test
+    void publishBooking_shouldNotRepublishStalePendingChangeToRegionAfterConfirmation() {
+        properties.setFanOutMode(FanOutMode.REGION);
+        BookingDTO confirmed = createBooking();
+        confirmed.setStatus(CONFIRMED);
+        when(regionService.getTopic(25.2, 55.3)).thenReturn("/topic/regions/1_2");
+        dispatchService.publishBooking(confirmed, null);
+
+        dispatchService.publishBooking(createBooking(), null);
+
+        verify(notificationService).publishBookingToRegion(confirmed, "/topic/regions/1_2");
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    void publishBooking_shouldStartWavesForPendingBookingInWaveMode() {
+        properties.setFanOutMode(FanOutMode.WAVE);
+        BookingDTO booking = createBooking();
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(waveDispatcher).offer(booking);
+        verifyNoInteractions(taxiService);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void publishBooking_shouldCloseWavesForConfirmedBookingInWaveMode() {
+        properties.setFanOutMode(FanOutMode.WAVE);
+        BookingDTO booking = createBooking();
+        booking.setStatus(CONFIRMED);
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(waveDispatcher).close(1L);
+        verifyNoInteractions(taxiService);
+    }
+
+    @Test
+    void publishBooking_shouldSendDeltaToOfferedTaxisAndFullBookingToNewOnes() {
+        BookingDTO booking = createBooking();
+        when(taxiService.getAvailableTaxiIDs()).thenReturn(List.of(1L, 2L)).thenReturn(List.of(2L, 3L));
+        dispatchService.publishBooking(booking, null);
+
+        BookingDTO updated = createBooking();
+        updated.setVersion(2L);
+        BookingDeltaDTO delta = BookingDeltaDTO.builder().bookingId(1L).version(2L)
+                .dropOffLocation(LocationDTO.builder().latitude(25.1).longitude(55.2).build()).build();
+        dispatchService.publishBooking(updated, delta);
+
+        verify(notificationService).publishBookingToAvailableTaxis(eq(delta), argThat(containsExactly(1L, 2L)));
+        verify(notificationService).publishBookingToAvailableTaxis(updated, List.of(3L));
+    }
+
+    @Test
+    void publishBooking_shouldRevokeOfferOnlyFromOfferedTaxisAndAssignedTaxi() {
+        BookingDTO booking = createBooking();
+        when(taxiService.getAvailableTaxiIDs()).thenReturn(List.of(1L, 2L));
+        dispatchService.publishBooking(booking, null);
+
+        BookingDTO confirmed = createBooking();
+        confirmed.setStatus(CONFIRMED);
+        confirmed.setTaxi(TaxiDTO.builder().id(5L).build());
+        BookingDeltaDTO delta = BookingDeltaDTO.builder().bookingId(1L).version(2L).status(CONFIRMED).taxiId(5L).build();
+        dispatchService.publishBooking(confirmed, delta);
+
+        verify(notificationService).publishBookingToAvailableTaxis(eq(delta), argThat(containsExactly(1L, 2L, 5L)));
+        verify(taxiService).getAvailableTaxiIDs();
+        assertEquals(0, offerRegistry.size());
+    }
+
+    @Test
+    void publishBooking_shouldNotifyNoTaxiForCancelledBookingThatWasNeverOffered() {
+        BookingDTO booking = createBooking();
+        booking.setStatus(CANCELLED);
+
+        dispatchService.publishBooking(booking, null);
+
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of());
+        verifyNoInteractions(taxiService);
+    }
+
+    @Test
+    void publishBooking_shouldIgnorePendingChangeHandledAfterRevocation() {
+        BookingDTO confirmed = createBooking();
+        confirmed.setStatus(CONFIRMED);
+        dispatchService.publishBooking(confirmed, null);
+
+        dispatchService.publishBooking(createBooking(), null);
+
+        verify(notificationService).publishBookingToAvailableTaxis(confirmed, List.of());
+        verifyNoMoreInteractions(notificationService);
+        verifyNoInteractions(taxiService);
+        assertEquals(0, offerRegistry.size());
+    }
+
+    @Test
+    void publishBooking_shouldCompleteOnceDeltaAndNewOffersWereDelivered() {
+        BookingDTO booking = createBooking();
+        when(taxiService.getAvailableTaxiIDs()).thenReturn(List.of(1L)).thenReturn(List.of(1L, 2L));
+        dispatchService.publishBooking(booking, null);
+        BookingDeltaDTO delta = BookingDeltaDTO.builder().bookingId(1L).version(2L).build();
+        CompletableFuture<Void> deltaSent = new CompletableFuture<>();
+        when(notificationService.publishBookingToAvailableTaxis(delta, List.of(1L))).thenReturn(deltaSent);
+
+        CompletableFuture<Void> published = dispatchService.publishBooking(booking, delta);
+
+        assertFalse(published.isDone());
+        deltaSent.complete(null);
+        assertTrue(published.isDone());
+        assertFalse(published.isCompletedExceptionally());
+    }
+
+    private static ArgumentMatcher<List<Long>> containsExactly(Long... taxiIds) {
+        return ids -> ids.size() == taxiIds.length && ids.containsAll(List.of(taxiIds));
+    }
+
+    private BookingDTO createBooking() {
+        return BookingDTO.builder()
+                .id(1L)
+                .status(PENDING)
+                .pickupLocation(LocationDTO.builder().latitude(25.2).longitude(55.3).build())
+                .build();
+    }
+}
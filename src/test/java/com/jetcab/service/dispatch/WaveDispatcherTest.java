@@ -0,0 +1,150 @@
+package com.jetcab.service.dispatch;
+
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.notification.NotificationProperties;
+import com.jetcab.service.notification.offer.OfferRegistry;
+import com.jetcab.service.taxi.index.TaxiIndexProperties;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import com.jetcab.service.taxi.model.Taxi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.jetcab.service.booking.model.BookingStatus.PENDING;
+import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WaveDispatcherTest {
+
+    private static final double LAT = 25.276987;
+    private static final double LON = 55.296249;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Captor
+    private ArgumentCaptor<Runnable> waveCaptor;
+
+    private TaxiSpatialIndex taxiSpatialIndex;
+    private OfferRegistry offerRegistry;
+    private WaveDispatcher waveDispatcher;
+    private ScheduledFuture<?> nextWave;
+
+    @BeforeEach
+    void setUp() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getWave().setInitialRadiusKm(1.0);
+        properties.getWave().setRadiusGrowthFactor(2.0);
+        properties.getWave().setMaxRadiusKm(4.0);
+        properties.getWave().setMaxTaxisPerWave(2);
+
+        taxiSpatialIndex = new TaxiSpatialIndex(new TaxiIndexProperties());
+        offerRegistry = new OfferRegistry(new NotificationProperties());
+        waveDispatcher = new WaveDispatcher(properties, taxiSpatialIndex, notificationService, offerRegistry, taskScheduler);
+
+        nextWave = mock(ScheduledFuture.class);
+        when(taskScheduler.getClock()).thenReturn(Clock.systemUTC());
+        doReturn(nextWave).when(taskScheduler).schedule(waveCaptor.capture(), any(Instant.class));
+    }
+
+    @Test
+    void offer_shouldWidenRadiusInWavesUntilMaxRadius() {
+        addTaxi(1L, LAT + 0.001);   // ~0.1 km
+        addTaxi(2L, LAT + 0.002);   // ~0.2 km
+        addTaxi(3L, LAT + 0.003);   // ~0.3 km
+        addTaxi(4L, LAT + 0.025);   // ~2.8 km
+        addTaxi(5L, LAT + 0.1);     // ~11 km, never reached
+        BookingDTO booking = createBooking();
+
+        waveDispatcher.offer(booking);
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(1L, 2L));
+
+        waveCaptor.getValue().run();    // 2 km
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(3L));
+
+        waveCaptor.getValue().run();    // 4 km, last wave
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(4L));
+
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        assertEquals(List.of(1L, 2L, 3L, 4L), sorted(offerRegistry.getOffered(7L)));
+    }
+
+    @Test
+    void offer_shouldSkipTaxisOfferedBeforeAndOfferUpdatedBookingInLaterWaves() {
+        addTaxi(1L, LAT + 0.001);
+        addTaxi(2L, LAT + 0.002);
+        addTaxi(3L, LAT + 0.003);
+        offerRegistry.record(7L, List.of(1L));
+        BookingDTO booking = createBooking();
+
+        waveDispatcher.offer(booking);
+        verify(notificationService).publishBookingToAvailableTaxis(booking, List.of(2L, 3L));
+
+        BookingDTO updated = createBooking();
+        updated.setVersion(2L);
+        waveDispatcher.offer(updated);
+        addTaxi(4L, LAT + 0.004);
+        waveCaptor.getValue().run();
+        verify(notificationService).publishBookingToAvailableTaxis(updated, List.of(4L));
+    }
+
+    @Test
+    void close_shouldCancelRemainingWaves() {
+        addTaxi(1L, LAT + 0.001);
+        addTaxi(2L, LAT + 0.002);
+        waveDispatcher.offer(createBooking());
+
+        waveDispatcher.close(7L);
+
+        verify(nextWave).cancel(false);
+        assertEquals(0, waveDispatcher.activeCount());
+
+        addTaxi(3L, LAT + 0.003);
+        waveCaptor.getValue().run();
+        verify(notificationService, times(1)).publishBookingToAvailableTaxis(any(), any());
+        assertEquals(List.of(1L, 2L), sorted(offerRegistry.getOffered(7L)));
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().toList();
+    }
+
+    private void addTaxi(Long id, double latitude) {
+        Taxi taxi = new Taxi();
+        taxi.setId(id);
+        taxi.setStatus(AVAILABLE);
+        taxi.setLatitude(latitude);
+        taxi.setLongitude(LON);
+        taxiSpatialIndex.update(taxi);
+    }
+
+    private BookingDTO createBooking() {
+        return BookingDTO.builder()
+                .id(7L)
+                .status(PENDING)
+                .pickupLocation(LocationDTO.builder().latitude(LAT).longitude(LON).build())
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.jetcab.service.dispatch.matching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class GreedyMatcherTest {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    private final GreedyMatcher matcher = new GreedyMatcher();
+
+    @Test
+    void match_shouldAssignCheapestPairsFirst() {
+        double[][] costs = {
+                {1.0, 2.0},
+                {1.5, 10.0}
+        };
+
+        assertArrayEquals(new int[]{0, -1}, matcher.match(new double[][]{{1.0}, {1.5}}));
+        assertArrayEquals(new int[]{0, 1}, matcher.match(new double[][]{{1.0, 2.0}, {3.0, 1.2}}));
+        assertArrayEquals(new int[]{0, 1}, matcher.match(costs));
+    }
+
+    @Test
+    void match_shouldNeverAssignForbiddenPairs() {
+        double[][] costs = {
+                {INF, INF},
+                {INF, 3.0}
+        };
+
+        assertArrayEquals(new int[]{-1, 1}, matcher.match(costs));
+    }
+
+    @Test
+    void match_shouldHandleEmptyMatrix() {
+        assertArrayEquals(new int[0], matcher.match(new double[0][0]));
+    }
+}
@@ -0,0 +1,88 @@
+package com.jetcab.service.dispatch.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HungarianMatcherTest {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    private final HungarianMatcher matcher = new HungarianMatcher();
+
+    @Test
+    void match_shouldMinimizeTotalCostWhereGreedyDoesNot() {
+        double[][] costs = {
+                {1.0, 2.0},
+                {1.5, 10.0}
+        };
+
+        assertArrayEquals(new int[]{1, 0}, matcher.match(costs));
+        assertArrayEquals(new int[]{0, 1}, new GreedyMatcher().match(costs));
+    }
+
+    @Test
+    void match_shouldSupportMoreBookingsThanTaxis() {
+        double[][] costs = {
+                {5.0},
+                {1.0},
+                {3.0}
+        };
+
+        assertArrayEquals(new int[]{-1, 0, -1}, matcher.match(costs));
+    }
+
+    @Test
+    void match_shouldNeverAssignForbiddenPairs() {
+        double[][] costs = {
+                {INF, 1.0},
+                {INF, 2.0}
+        };
+
+        int[] actual = matcher.match(costs);
+
+        assertEquals(-1, actual[0] == 1 ? actual[1] : actual[0]);
+        assertTrue(actual[0] == 1 || actual[1] == 1);
+    }
+
+    @Test
+    void match_shouldNotBeWorseThanGreedy() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            double[][] costs = new double[6][8];
+            for (double[] row : costs) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = random.nextDouble() < 0.2 ? INF : random.nextDouble() * 10;
+                }
+            }
+            int[] optimal = matcher.match(costs);
+            int[] greedy = new GreedyMatcher().match(costs);
+
+            assertTrue(assignedCount(optimal) >= assignedCount(greedy) || totalCost(costs, optimal) <= totalCost(costs, greedy));
+        }
+    }
+
+    private int assignedCount(int[] assignment) {
+        int count = 0;
+        for (int column : assignment) {
+            if (column != Matcher.UNASSIGNED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private double totalCost(double[][] costs, int[] assignment) {
+        double total = 0;
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] != Matcher.UNASSIGNED) {
+                total += costs[row][assignment[row]];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,72 @@
+package com.jetcab.service.eta;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.jetcab.common.geo.GeoUtils.distanceKm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EtaServiceImplTest {
+    private static final double DUBAI_LAT = 25.276987;
+    private static final double DUBAI_LON = 55.296249;
+    private static final double SHARJAH_LAT = 25.204849;
+    private static final double SHARJAH_LON = 55.270782;
+
+    private EtaProperties properties;
+    private EtaServiceImpl etaService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EtaProperties();
+        etaService = new EtaServiceImpl(properties);
+    }
+
+    @Test
+    void estimateSeconds_shouldUseBaselineInitially() {
+        double distance = distanceKm(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON);
+        int expected = (int) Math.round(distance * 3600 * properties.getDetourFactor() / properties.getAverageSpeedKmh());
+
+        assertEquals(expected, etaService.estimateSeconds(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON), 1);
+    }
+
+    @Test
+    void estimateSeconds_shouldUseBaselineOutsideOfServiceArea() {
+        int inside = etaService.estimateSeconds(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON);
+        etaService.recordTrip(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON, inside * 2L);
+
+        double distance = distanceKm(50.45, 30.52, 50.40, 30.60);
+        int expected = (int) Math.round(distance * 3600 * properties.getDetourFactor() / properties.getAverageSpeedKmh());
+        assertEquals(expected, etaService.estimateSeconds(50.45, 30.52, 50.40, 30.60), 1);
+    }
+
+    @Test
+    void recordTrip_shouldMoveEstimateTowardsObservedDuration() {
+        int baseline = etaService.estimateSeconds(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON);
+
+        for (int i = 0; i < 50; i++) {
+            etaService.recordTrip(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON, baseline * 2L);
+        }
+
+        assertEquals(baseline * 2, etaService.estimateSeconds(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON), 2);
+        assertEquals(baseline, etaService.estimateSeconds(SHARJAH_LAT, SHARJAH_LON, DUBAI_LAT, DUBAI_LON), 1);
+    }
+
+    @Test
+    void recordTrip_shouldClampOutliers() {
+        int baseline = etaService.estimateSeconds(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON);
+
+        for (int i = 0; i < 50; i++) {
+            etaService.recordTrip(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON, baseline * 100L);
+        }
+
+        assertTrue(etaService.estimateSeconds(DUBAI_LAT, DUBAI_LON, SHARJAH_LAT, SHARJAH_LON) <= baseline * 4 + 1);
+    }
+
+    @Test
+    void shouldRejectTooLargeServiceArea() {
+        properties.setCellSizeKm(0.5);
+        assertThrows(IllegalArgumentException.class, () -> new EtaServiceImpl(properties));
+    }
+}
@@ -1,20 +1,23 @@
 package com.jetcab.service.location;
 
+import com.jetcab.common.geo.GeoGrid;
 import com.jetcab.persistence.LocationRepository;
+import com.jetcab.service.location.cache.LocationCache;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
 import com.jetcab.service.location.model.Location;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.List;
+import java.util.Optional;
 
-import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -22,47 +25,98 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class LocationServiceImplTest {
     private static final Long LOCATION_ID = 34L;
-    private static final Double LATITUDE = 567435d;
-    private static final Double LONGITUDE = 674353d;
+    private static final Double LATITUDE = 50.4501d;
+    private static final Double LONGITUDE = 30.5234d;
 
     @Mock
     private LocationRepository locationRepository;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LocationCache locationCache;
+
     private LocationServiceImpl locationService;
 
+    @BeforeEach
+    void setUp() {
+        LocationProperties properties = new LocationProperties();
+        locationCache = new LocationCache(properties);
+        locationService = new LocationServiceImpl(locationRepository, locationCache, properties, transactionManager);
+    }
+
     @Test
     void findOrCreate_findExistingLocation() {
-        when(locationRepository.findAllByLatitudeAndLongitude(anyDouble(), anyDouble())).thenReturn(List.of(getLocation()));
-        Location actual = locationService.findOrCreate(getModifyLocationDTO());
+        when(locationRepository.findByCellKey(anyLong())).thenReturn(Optional.of(getLocation()));
+        Location actual = locationService.findOrCreate(getModifyLocationDTO(LATITUDE, LONGITUDE));
         assertNotNull(actual);
         assertEquals(LOCATION_ID, actual.getId());
         assertEquals(LATITUDE, actual.getLatitude());
         assertEquals(LONGITUDE, actual.getLongitude());
+        assertEquals(1, locationCache.size());
 
-        verify(locationRepository).findAllByLatitudeAndLongitude(anyDouble(), anyDouble());
+        verify(locationRepository).findByCellKey(anyLong());
         verifyNoMoreInteractions(locationRepository);
     }
 
     @Test
     void findOrCreate_createNewLocation() {
-        when(locationRepository.findAllByLatitudeAndLongitude(anyDouble(), anyDouble())).thenReturn(emptyList());
+        when(locationRepository.findByCellKey(anyLong())).thenReturn(Optional.empty());
         when(locationRepository.saveAndFlush(any(Location.class))).thenReturn(getLocation());
-        Location actual = locationService.findOrCreate(getModifyLocationDTO());
+        Location actual = locationService.findOrCreate(getModifyLocationDTO(LATITUDE, LONGITUDE));
         assertNotNull(actual);
         assertEquals(LOCATION_ID, actual.getId());
         assertEquals(LATITUDE, actual.getLatitude());
         assertEquals(LONGITUDE, actual.getLongitude());
+        assertEquals(1, locationCache.size());
 
-        verify(locationRepository).findAllByLatitudeAndLongitude(anyDouble(), anyDouble());
+        verify(locationRepository).findByCellKey(anyLong());
         verify(locationRepository).saveAndFlush(any(Location.class));
         verifyNoMoreInteractions(locationRepository);
     }
 
-    private ModifyLocationDTO getModifyLocationDTO() {
+    @Test
+    void findOrCreate_nearbyCoordinatesHitCache() {
+        when(locationRepository.findByCellKey(anyLong())).thenReturn(Optional.of(getLocation()));
+        Location first = locationService.findOrCreate(getModifyLocationDTO(LATITUDE, LONGITUDE));
+        Location second = locationService.findOrCreate(getModifyLocationDTO(LATITUDE + 0.000001, LONGITUDE + 0.000001));
+
+        assertEquals(LOCATION_ID, second.getId());
+        assertEquals(first.getCellKey(), second.getCellKey());
+        assertNotSame(first, second);
+
+        verify(locationRepository).findByCellKey(anyLong());
+        verifyNoMoreInteractions(locationRepository);
+    }
+
+    @Test
+    void findOrCreate_shouldReadConcurrentlyCreatedLocationWhenInsertLosesTheRace() {
+        when(locationRepository.findByCellKey(anyLong())).thenReturn(Optional.empty()).thenReturn(Optional.of(getLocation()));
+        when(locationRepository.saveAndFlush(any(Location.class))).thenThrow(new DataIntegrityViolationException("ux_locations_cell_key"));
+
+        Location actual = locationService.findOrCreate(getModifyLocationDTO(LATITUDE, LONGITUDE));
+
+        assertEquals(LOCATION_ID, actual.getId());
+        assertEquals(1, locationCache.size());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void verifyCellSize_acceptsCellSizeOfStoredLocations() {
+        when(locationRepository.findCellSizeKm()).thenReturn(Optional.of(0.005));
+        assertDoesNotThrow(() -> locationService.verifyCellSize());
+    }
+
+    @Test
+    void verifyCellSize_failsWhenStoredLocationsWereKeyedWithAnotherCellSize() {
+        when(locationRepository.findCellSizeKm()).thenReturn(Optional.of(0.01));
+        assertThrows(IllegalStateException.class, () -> locationService.verifyCellSize());
+    }
+
+    private ModifyLocationDTO getModifyLocationDTO(Double latitude, Double longitude) {
         ModifyLocationDTO dto = new ModifyLocationDTO();
-        dto.setLatitude(LATITUDE);
-        dto.setLongitude(LONGITUDE);
+        dto.setLatitude(latitude);
+        dto.setLongitude(longitude);
         return dto;
     }
 
@@ -71,6 +125,7 @@ class LocationServiceImplTest {
         location.setId(LOCATION_ID);
         location.setLatitude(LATITUDE);
         location.setLongitude(LONGITUDE);
+        location.setCellKey(new GeoGrid(0.005).cellKey(LATITUDE, LONGITUDE));
         return location;
     }
-}
\ No newline at end of file
+}
@@ -1,31 +1,75 @@
 package com.jetcab.service.notification;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.jetcab.common.concurrent.HashedTimingWheel;
+import com.jetcab.common.concurrent.WeightedLaneExecutor;
 import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+import com.jetcab.service.dispatch.DispatchService;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.notification.dto.DeadLetterDTO;
+import com.jetcab.service.notification.mapper.DeadLetterMapper;
+import com.jetcab.service.notification.offer.OfferRegistry;
+import com.jetcab.service.notification.retry.DeadLetterStore;
+import com.jetcab.service.taxi.dto.TaxiDTO;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Mockito;
+import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.util.MimeTypeUtils;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import static com.jetcab.configuration.NotificationExecutorConfiguration.NOTIFICATION_RETRY_WHEEL;
+import static com.jetcab.configuration.WebSocketConfiguration.CBOR_MESSAGE_CONVERTER;
+import static com.jetcab.service.booking.model.BookingStatus.CONFIRMED;
+import static com.jetcab.service.booking.model.BookingStatus.PENDING;
 import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
-@EnableRetry
-@SpringBootTest
+@SpringBootTest(properties = {
+        "jetcab.notification.retry.initial-backoff-ms=50",
+        "jetcab.notification.retry.max-backoff-ms=200",
+        "jetcab.notification.retry.tick-ms=10"
+})
 class NotificationServiceImplTest {
 
     @MockBean
@@ -34,12 +78,48 @@ class NotificationServiceImplTest {
     @Autowired
     private NotificationServiceImpl notificationService;
 
+    @Autowired
+    private DeadLetterStore deadLetterStore;
+
+    @Autowired
+    private TaxiSessionRegistry taxiSessionRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OfferRegistry offerRegistry;
+
+    @Autowired
+    private DispatchService dispatchService;
+
+    @Autowired
+    @Qualifier("brokerMessageConverter")
+    private MessageConverter messageConverter;
+
+    @Autowired
+    @Qualifier(CBOR_MESSAGE_CONVERTER)
+    private MessageConverter cborMessageConverter;
+
+    @Autowired
+    @Qualifier(NOTIFICATION_RETRY_WHEEL)
+    private HashedTimingWheel retryWheel;
+
+    @Autowired
+    private DeadLetterMapper deadLetterMapper;
+
+    @Autowired
+    private NotificationProperties properties;
+
+    @Captor
+    private ArgumentCaptor<Message<?>> messageCaptor;
+
     private ArgumentCaptor<String> destinationCaptor;
 
     @BeforeEach
     void setUp() {
         destinationCaptor = ArgumentCaptor.forClass(String.class);
-        notificationService = Mockito.spy(notificationService);
+        deadLetterStore.clear();
     }
 
     @Test
@@ -53,9 +133,10 @@ class NotificationServiceImplTest {
         List<String> expectedDestinations = List.of("/topic/bookings/34", "/topic/bookings/78");
         List<Long> availableTaxiIDs = List.of(34L, 78L);
 
-        notificationService.publishBookingToAvailableTaxis(new BookingDTO(), availableTaxiIDs);
+        CompletableFuture<Void> sent = notificationService.publishBookingToAvailableTaxis(new BookingDTO(), availableTaxiIDs);
 
-        verify(messagingTemplate, times(2)).convertAndSend(destinationCaptor.capture(), any(BookingDTO.class));
+        assertDoesNotThrow(() -> sent.get(1, TimeUnit.SECONDS));
+        verify(messagingTemplate, times(2)).send(destinationCaptor.capture(), any(Message.class));
         List<String> actualDestinations = destinationCaptor.getAllValues();
         assertNotNull(actualDestinations);
         assertEquals(2, actualDestinations.size());
@@ -63,17 +144,175 @@ class NotificationServiceImplTest {
         assertEquals(expectedDestinations, actualDestinations);
     }
 
+    @Test
+    void publishBookingToAvailableTaxis_setsBookingIdHeader() {
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(5L).build(), List.of(34L));
+
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/34"), messageCaptor.capture());
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(messageCaptor.getValue());
+        assertEquals("5", accessor.getFirstNativeHeader(NotificationService.BOOKING_ID_HEADER));
+    }
+
     @Test
     void publishBookingToAvailableTaxis_sendNotificationToCorrectDestinationWithRetry() {
         List<Long> availableTaxiIDs = List.of(34L, 78L);
 
         doThrow(new MessagingException("network issue"))
                 .doNothing()
-                .when(messagingTemplate).convertAndSend(eq("/topic/bookings/78"), any(BookingDTO.class));
+                .when(messagingTemplate).send(eq("/topic/bookings/78"), any(Message.class));
 
         notificationService.publishBookingToAvailableTaxis(new BookingDTO(), availableTaxiIDs);
 
-        verify(messagingTemplate).convertAndSend(eq("/topic/bookings/34"), any(BookingDTO.class));
-        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/bookings/78"), any(BookingDTO.class));
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/34"), any(Message.class));
+        verify(messagingTemplate, timeout(2000).times(2)).send(eq("/topic/bookings/78"), any(Message.class));
+        assertTrue(notificationService.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void publishBookingToAvailableTaxis_deadLettersAfterMaxAttempts() {
+        doThrow(new MessagingException("network issue"))
+                .when(messagingTemplate).send(eq("/topic/bookings/78"), any(Message.class));
+
+        CompletableFuture<Void> sent = notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(5L).build(), List.of(78L));
+
+        assertThrows(ExecutionException.class, () -> sent.get(2, TimeUnit.SECONDS));
+        verify(messagingTemplate, times(3)).send(eq("/topic/bookings/78"), any(Message.class));
+        List<DeadLetterDTO> deadLetters = notificationService.getDeadLetters();
+        assertEquals(1, deadLetters.size());
+        DeadLetterDTO deadLetter = deadLetters.get(0);
+        assertEquals(78L, deadLetter.getTaxiId());
+        assertEquals("/topic/bookings/78", deadLetter.getDestination());
+        assertEquals(3, deadLetter.getAttempts());
+        assertEquals("network issue", deadLetter.getError());
+        assertTrue(deadLetter.getPayload().contains("\"id\":5"));
+    }
+
+    @Test
+    void publishBookingToAvailableTaxis_serializesPayloadOnce() throws Exception {
+        BookingDTO booking = BookingDTO.builder().id(5L).build();
+
+        notificationService.publishBookingToAvailableTaxis(booking, List.of(34L, 78L, 91L));
+
+        verify(messagingTemplate, timeout(1000).times(3)).send(any(String.class), messageCaptor.capture());
+        List<Message<?>> messages = messageCaptor.getAllValues();
+        Message<?> first = messages.get(0);
+        assertTrue(messages.stream().allMatch(message -> message == first));
+        assertFalse(MessageHeaderAccessor.getAccessor(first, MessageHeaderAccessor.class).isMutable());
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, first.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertEquals(5L, objectMapper.readValue((byte[]) first.getPayload(), BookingDTO.class).getId());
+    }
+
+    @Test
+    void publishBookingToAvailableTaxis_encodesPayloadInNegotiatedFormat() throws Exception {
+        BookingDTO booking = BookingDTO.builder().id(5L).build();
+        connect("cbor-session", "cbor", 91L);
+        try {
+            notificationService.publishBookingToAvailableTaxis(booking, List.of(34L, 91L));
+
+            verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/34"), messageCaptor.capture());
+            Message<?> json = messageCaptor.getValue();
+            verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/91"), messageCaptor.capture());
+            Message<?> cbor = messageCaptor.getValue();
+
+            assertEquals(MimeTypeUtils.APPLICATION_JSON, json.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+            assertEquals(PayloadFormat.CBOR.getMimeType(), cbor.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+            assertEquals(5L, new CBORMapper().readValue((byte[]) cbor.getPayload(), BookingDTO.class).getId());
+            assertTrue(((byte[]) cbor.getPayload()).length < ((byte[]) json.getPayload()).length);
+        } finally {
+            disconnect("cbor-session");
+        }
+    }
+
+    @Test
+    void publishBookingToAvailableTaxis_dropsOfferOfRevokedBooking() {
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(901L).status(CONFIRMED).build(), List.of(34L));
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(901L).status(PENDING).build(), List.of(78L));
+
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/34"), any(Message.class));
+        verify(messagingTemplate, after(300).never()).send(eq("/topic/bookings/78"), any(Message.class));
+        assertTrue(offerRegistry.isReleased(901L));
+    }
+
+    @Test
+    void publishBookingToAvailableTaxis_dropsOfferRetryQueuedBeforeRevocation() {
+        doThrow(new MessagingException("network issue"))
+                .doNothing()
+                .when(messagingTemplate).send(eq("/topic/bookings/78"), any(Message.class));
+
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(902L).status(PENDING).build(), List.of(78L));
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/78"), any(Message.class));
+        notificationService.publishBookingToAvailableTaxis(BookingDTO.builder().id(902L).status(CONFIRMED).build(), List.of(78L));
+
+        verify(messagingTemplate, after(1000).times(2)).send(eq("/topic/bookings/78"), any(Message.class));
+        assertTrue(notificationService.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void publishBooking_deliversChangesOfConfirmedBookingToAssignedTaxi() throws Exception {
+        BookingDTO confirmed = BookingDTO.builder().id(904L).status(CONFIRMED).taxi(TaxiDTO.builder().id(34L).build()).build();
+        dispatchService.publishBooking(confirmed, BookingDeltaDTO.builder().bookingId(904L).status(CONFIRMED).taxiId(34L).build())
+                .get(1, TimeUnit.SECONDS);
+
+        LocationDTO dropOff = LocationDTO.builder().latitude(52.52).longitude(13.40).build();
+        confirmed.setDropOffLocation(dropOff);
+        dispatchService.publishBooking(confirmed, BookingDeltaDTO.builder().bookingId(904L).dropOffLocation(dropOff).build())
+                .get(1, TimeUnit.SECONDS);
+
+        verify(messagingTemplate, times(2)).send(eq("/topic/bookings/34"), messageCaptor.capture());
+        BookingDeltaDTO delivered = objectMapper.readValue((byte[]) messageCaptor.getValue().getPayload(), BookingDeltaDTO.class);
+        assertEquals(904L, delivered.getBookingId());
+        assertEquals(dropOff, delivered.getDropOffLocation());
+    }
+
+    @Test
+    void publishBookingToAvailableTaxis_deadLettersDeliveriesRejectedByFullLane() throws InterruptedException {
+        WeightedLaneExecutor<NotificationPriority> executor = new WeightedLaneExecutor<>("test-notification-",
+                NotificationPriority.class, lane -> 1, 1, 1, new WeightedLaneExecutor.LaneListener<>() {
+        });
+        NotificationServiceImpl service = new NotificationServiceImpl(messagingTemplate, messageConverter, cborMessageConverter,
+                taxiSessionRegistry, executor, retryWheel, deadLetterStore, deadLetterMapper, properties, offerRegistry);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            proceed.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(messagingTemplate).send(eq("/topic/bookings/11"), any(Message.class));
+        try {
+            service.publishBookingToAvailableTaxis(BookingDTO.builder().id(903L).build(), List.of(11L));
+            assertTrue(sending.await(1, TimeUnit.SECONDS));
+            service.publishBookingToAvailableTaxis(BookingDTO.builder().id(903L).build(), List.of(12L, 13L));
+        } finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/bookings/12"), any(Message.class));
+        List<DeadLetterDTO> deadLetters = service.getDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals(13L, deadLetters.get(0).getTaxiId());
+        assertEquals(0, deadLetters.get(0).getAttempts());
+        assertEquals("Rejected by the full OFFER lane", deadLetters.get(0).getError());
+    }
+
+    private void connect(String sessionId, String payloadFormat, Long taxiId) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        connect.setNativeHeader(PayloadFormat.HEADER, payloadFormat);
+        connect.setSessionAttributes(Map.of(PayloadFormat.BINARY_FRAMES_ATTRIBUTE, true));
+        taxiSessionRegistry.onConnect(new SessionConnectEvent(this, MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders())));
+
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSessionId(sessionId);
+        subscribe.setSubscriptionId("sub-0");
+        subscribe.setDestination("/topic/bookings/" + taxiId);
+        taxiSessionRegistry.onSubscribe(new SessionSubscribeEvent(this, MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders())));
+    }
+
+    private void disconnect(String sessionId) {
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId(sessionId);
+        taxiSessionRegistry.onDisconnect(new SessionDisconnectEvent(this,
+                MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), sessionId, CloseStatus.NORMAL));
     }
-}
\ No newline at end of file
+}
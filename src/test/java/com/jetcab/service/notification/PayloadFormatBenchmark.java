@@ -0,0 +1,84 @@
+package com.jetcab.service.notification;
+
+import com.jetcab.configuration.MvcConfiguration;
+import com.jetcab.configuration.WebSocketConfiguration;
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.location.dto.LocationDTO;
+import com.jetcab.service.passenger.dto.PassengerDTO;
+import com.jetcab.service.taxi.dto.TaxiDTO;
+import com.jetcab.service.taxi.model.TaxiStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares size and encode time of a booking payload in JSON, with the application object mapper as the broker
+ * converter uses it, and in CBOR.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class PayloadFormatBenchmark {
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void compareJsonAndCbor() {
+        BookingDTO booking = booking();
+        MappingJackson2MessageConverter json = new MappingJackson2MessageConverter();
+        json.setObjectMapper(new MvcConfiguration().objectMapper());
+        MessageConverter cbor = new WebSocketConfiguration(null).cborMessageConverter();
+
+        int jsonSize = encode(json, booking).length;
+        int cborSize = encode(cbor, booking).length;
+        double jsonNanos = measure(json, booking);
+        double cborNanos = measure(cbor, booking);
+
+        System.out.printf("JSON: %d bytes, %.0f ns/encode%n", jsonSize, jsonNanos);
+        System.out.printf("CBOR: %d bytes, %.0f ns/encode (%.0f%% of JSON size)%n", cborSize, cborNanos, 100.0 * cborSize / jsonSize);
+        assertTrue(cborSize < jsonSize);
+    }
+
+    private static double measure(MessageConverter converter, BookingDTO booking) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += encode(converter, booking).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += encode(converter, booking).length;
+        }
+        double nanos = (double) (System.nanoTime() - start) / ITERATIONS;
+        assertTrue(sink > 0);
+        return nanos;
+    }
+
+    private static byte[] encode(MessageConverter converter, BookingDTO booking) {
+        Message<?> message = converter.toMessage(booking, null);
+        return (byte[]) message.getPayload();
+    }
+
+    private static BookingDTO booking() {
+        return BookingDTO.builder()
+                .id(184_467L)
+                .passenger(new PassengerDTO("Layla Haddad", "+971501234567"))
+                .pickupLocation(LocationDTO.builder().id(9_001L).latitude(25.204849).longitude(55.270782).build())
+                .dropOffLocation(LocationDTO.builder().id(9_002L).latitude(25.276987).longitude(55.296249).build())
+                .status(BookingStatus.CONFIRMED)
+                .bookedAt(ZonedDateTime.parse("2024-08-01T10:15:30+04:00"))
+                .taxi(TaxiDTO.builder()
+                        .id(34L)
+                        .licensePlate("MR543GL")
+                        .status(TaxiStatus.BOOKED)
+                        .location(LocationDTO.builder().latitude(25.2101).longitude(55.2744).build())
+                        .build())
+                .pickupEtaSeconds(420)
+                .build();
+    }
+}
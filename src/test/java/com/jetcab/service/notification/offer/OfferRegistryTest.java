@@ -0,0 +1,69 @@
+package com.jetcab.service.notification.offer;
+
+import com.jetcab.service.notification.NotificationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfferRegistryTest {
+
+    private final OfferRegistry offerRegistry = new OfferRegistry(new NotificationProperties());
+
+    @Test
+    void record_shouldReturnOnlyTaxisThatDidNotHaveTheOffer() {
+        assertEquals(List.of(1L, 2L), offerRegistry.record(7L, List.of(1L, 2L)));
+        assertEquals(List.of(3L), offerRegistry.record(7L, List.of(2L, 3L, 1L)));
+        assertEquals(3, offerRegistry.offeredCount(7L));
+        assertEquals(0, offerRegistry.offeredCount(8L));
+    }
+
+    @Test
+    void record_shouldStopAtLimit() {
+        offerRegistry.record(7L, List.of(1L));
+
+        assertEquals(List.of(2L, 3L), offerRegistry.record(7L, List.of(1L, 2L, 3L, 4L), 2));
+        assertEquals(3, offerRegistry.offeredCount(7L));
+    }
+
+    @Test
+    void release_shouldReturnOfferedTaxisAndForgetBooking() {
+        offerRegistry.record(7L, List.of(1L, 2L));
+        offerRegistry.record(8L, List.of(2L));
+
+        List<Long> released = offerRegistry.release(7L);
+
+        assertEquals(2, released.size());
+        assertTrue(released.containsAll(List.of(1L, 2L)));
+        assertEquals(List.of(), offerRegistry.getOffered(7L));
+        assertEquals(List.of(), offerRegistry.release(7L));
+        assertEquals(List.of(2L), offerRegistry.getOffered(8L));
+        assertEquals(1, offerRegistry.size());
+    }
+
+    @Test
+    void record_shouldNotRecreateOfferOfReleasedBooking() {
+        offerRegistry.record(7L, List.of(1L));
+        offerRegistry.release(7L);
+
+        assertEquals(List.of(), offerRegistry.record(7L, List.of(1L, 2L)));
+        assertTrue(offerRegistry.isReleased(7L));
+        assertFalse(offerRegistry.isReleased(8L));
+        assertEquals(0, offerRegistry.size());
+    }
+
+    @Test
+    void evictReleased_shouldDropTombstonesOlderThanRetention() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getOffer().setReleasedRetentionMs(0);
+        OfferRegistry registry = new OfferRegistry(properties);
+        registry.release(7L);
+
+        assertEquals(1, registry.evictReleased());
+        assertFalse(registry.isReleased(7L));
+        assertEquals(List.of(1L), registry.record(7L, List.of(1L)));
+    }
+}
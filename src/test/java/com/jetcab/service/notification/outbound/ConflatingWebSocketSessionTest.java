@@ -0,0 +1,138 @@
+package com.jetcab.service.notification.outbound;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ConflatingWebSocketSessionTest {
+
+    private static final int CAPACITY = 3;
+    private static final long SATURATION_TIMEOUT_MS = 20;
+
+    @Mock
+    private WebSocketSession delegate;
+
+    @Captor
+    private ArgumentCaptor<WebSocketMessage<?>> messageCaptor;
+
+    private final List<Runnable> drains = new ArrayList<>();
+    private ConflatingWebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        session = new ConflatingWebSocketSession(delegate, drains::add, CAPACITY, SATURATION_TIMEOUT_MS,
+                new OutboundSessionMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void sendMessage_shouldKeepOnlyLatestFrameOfBookingInItsQueuePosition() throws IOException {
+        TextMessage first = frame(1L, "{\"version\":1}");
+        TextMessage other = frame(2L, "{\"version\":1}");
+        TextMessage latest = frame(1L, "{\"version\":2}");
+
+        session.sendMessage(first);
+        session.sendMessage(other);
+        session.sendMessage(latest);
+        assertEquals(2, session.queueSize());
+        assertEquals(1, drains.size());
+
+        drains.get(0).run();
+
+        verify(delegate, times(2)).sendMessage(messageCaptor.capture());
+        assertEquals(List.of(latest, other), messageCaptor.getAllValues());
+        assertEquals(0, session.queueSize());
+    }
+
+    @Test
+    void sendMessage_shouldNotConflateFramesWithoutBookingId() {
+        session.sendMessage(new TextMessage("\n"));
+        session.sendMessage(new TextMessage("\n"));
+
+        assertEquals(2, session.queueSize());
+    }
+
+    @Test
+    void sendMessage_shouldDropFramesWhenFullAndCloseAfterSaturationTimeout() throws InterruptedException, IOException {
+        for (long bookingId = 1; bookingId <= CAPACITY; bookingId++) {
+            session.sendMessage(frame(bookingId, "{}"));
+        }
+
+        session.sendMessage(frame(4L, "{}"));
+        session.sendMessage(frame(1L, "{\"version\":2}"));
+        assertEquals(CAPACITY, session.queueSize());
+
+        Thread.sleep(SATURATION_TIMEOUT_MS * 2);
+        SessionLimitExceededException e = assertThrows(SessionLimitExceededException.class,
+                () -> session.sendMessage(frame(5L, "{}")));
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, e.getStatus());
+        assertEquals(0, session.queueSize());
+
+        session.sendMessage(frame(6L, "{}"));
+        drains.get(0).run();
+        verify(delegate, never()).sendMessage(any());
+    }
+
+    @Test
+    void sendMessage_shouldDiscardQueueAndCloseSessionWhenWriteFails() throws IOException {
+        doThrow(new IOException("broken pipe")).when(delegate).sendMessage(any());
+        session.sendMessage(frame(1L, "{}"));
+        session.sendMessage(frame(2L, "{}"));
+
+        drains.get(0).run();
+
+        verify(delegate).sendMessage(any());
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, session.queueSize());
+    }
+
+    @Test
+    void close_shouldDiscardQueue() throws IOException {
+        session.sendMessage(frame(1L, "{}"));
+
+        session.close(CloseStatus.NORMAL);
+
+        verify(delegate).close(CloseStatus.NORMAL);
+        assertEquals(0, session.queueSize());
+    }
+
+    @Test
+    void bookingId_shouldReadHeaderOfTextAndBinaryFramesOnly() {
+        TextMessage text = frame(42L, "{\"note\":\"\\nbooking-id:7\"}");
+        BinaryMessage binary = new BinaryMessage(text.getPayload().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(42L, StompFrames.bookingId(text));
+        assertEquals(42L, StompFrames.bookingId(binary));
+        assertNull(StompFrames.bookingId("MESSAGE\ndestination:/topic/bookings/3\n\n\nbooking-id:7\u0000"));
+    }
+
+    private static TextMessage frame(Long bookingId, String body) {
+        return new TextMessage("MESSAGE\ndestination:/topic/bookings/3\nbooking-id:" + bookingId
+                + "\ncontent-length:" + body.length() + "\n\n" + body + "\u0000");
+    }
+}
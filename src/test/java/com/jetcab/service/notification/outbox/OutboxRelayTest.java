@@ -0,0 +1,158 @@
+package com.jetcab.service.notification.outbox;
+
+import com.jetcab.persistence.OutboxRepository;
+import com.jetcab.service.booking.dto.BookingDTO;
+import com.jetcab.service.booking.dto.BookingDeltaDTO;
+import com.jetcab.service.booking.event.BookingChangedEvent;
+import com.jetcab.service.booking.model.BookingStatus;
+import com.jetcab.service.dispatch.DispatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "jetcab.notification.outbox.poll-interval-ms=3600000")
+class OutboxRelayTest {
+
+    @MockBean
+    private DispatchService dispatchService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        when(dispatchService.publishBooking(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void shouldRelayCommittedBookingChangesAndDeleteThem() {
+        BookingDTO booking = BookingDTO.builder().id(1L).status(BookingStatus.PENDING).build();
+
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(new BookingChangedEvent(booking)));
+        assertEquals(1, outboxRepository.count());
+
+        assertEquals(1, outboxRelay.relay());
+
+        ArgumentCaptor<BookingDTO> captor = ArgumentCaptor.forClass(BookingDTO.class);
+        verify(dispatchService).publishBooking(captor.capture(), isNull());
+        assertEquals(booking, captor.getValue());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void shouldRelayDeltaOfChangedBooking() {
+        BookingDTO booking = BookingDTO.builder().id(6L).status(BookingStatus.CANCELLED).version(3L).build();
+        BookingDeltaDTO delta = BookingDeltaDTO.builder().bookingId(6L).version(3L).status(BookingStatus.CANCELLED).build();
+
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(new BookingChangedEvent(booking, delta)));
+        outboxRelay.relay();
+
+        verify(dispatchService).publishBooking(eq(booking), eq(delta));
+    }
+
+    @Test
+    void shouldNotWriteBookingChangesOfRolledBackTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new BookingChangedEvent(BookingDTO.builder().id(2L).build()));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(0, outboxRelay.relay());
+        verifyNoInteractions(dispatchService);
+    }
+
+    @Test
+    void shouldKeepMessagesThatFailedToDispatch() {
+        doThrow(new IllegalStateException("dispatch failed")).when(dispatchService).publishBooking(argThat(b -> b.getId() == 3L), any());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new BookingChangedEvent(BookingDTO.builder().id(3L).build()));
+            eventPublisher.publishEvent(new BookingChangedEvent(BookingDTO.builder().id(4L).build()));
+        });
+
+        assertEquals(2, outboxRelay.relay());
+
+        assertEquals(1, outboxRepository.count());
+        assertEquals(3L, outboxRepository.findAll().get(0).getBookingId());
+    }
+
+    @Test
+    void shouldDeleteMessageOnlyOnceItsNotificationsWereDelivered() {
+        CompletableFuture<Void> delivered = new CompletableFuture<>();
+        when(dispatchService.publishBooking(argThat(b -> b.getId() == 7L), any())).thenReturn(delivered);
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(new BookingChangedEvent(BookingDTO.builder().id(7L).build())));
+
+        assertEquals(1, outboxRelay.relay());
+        assertEquals(1, outboxRepository.count());
+
+        delivered.complete(null);
+        assertEquals(0, outboxRelay.relay());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void shouldKeepMessageClaimedWhenDeliveryWasDeadLettered() {
+        when(dispatchService.publishBooking(argThat(b -> b.getId() == 8L), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Some deliveries were dead-lettered")));
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(new BookingChangedEvent(BookingDTO.builder().id(8L).build())));
+
+        assertEquals(1, outboxRelay.relay());
+        assertEquals(0, outboxRelay.relay());
+
+        OutboxMessage message = outboxRepository.findAll().get(0);
+        assertEquals(8L, message.getBookingId());
+        assertNotNull(message.getClaimedBy());
+    }
+
+    @Test
+    void shouldNotClaimMessagesClaimedByAnotherRelay() {
+        OutboxMessage message = new OutboxMessage();
+        message.setBookingId(5L);
+        message.setPayload("{\"id\":5}");
+        message.setCreatedAt(ZonedDateTime.now());
+        message.setClaimedBy("other-relay");
+        message.setClaimedAt(ZonedDateTime.now());
+        outboxRepository.save(message);
+
+        assertEquals(0, outboxRelay.relay());
+        verify(dispatchService, never()).publishBooking(any(), any());
+
+        message.setClaimedAt(ZonedDateTime.now().minusHours(1));
+        outboxRepository.save(message);
+
+        assertEquals(1, outboxRelay.relay());
+        verify(dispatchService).publishBooking(argThat(b -> b.getId() == 5L), isNull());
+        assertEquals(0, outboxRepository.count());
+    }
+}
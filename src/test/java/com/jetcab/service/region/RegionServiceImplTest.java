@@ -0,0 +1,92 @@
+package com.jetcab.service.region;
+
+import com.jetcab.persistence.TaxiRepository;
+import com.jetcab.service.dispatch.DispatchProperties;
+import com.jetcab.service.dispatch.FanOutMode;
+import com.jetcab.service.notification.NotificationService;
+import com.jetcab.service.region.dto.RegionAssignmentDTO;
+import com.jetcab.service.taxi.model.Taxi;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RegionServiceImplTest {
+    private static final Long TAXI_ID = 34L;
+
+    @Mock
+    private TaxiRepository taxiRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private DispatchProperties dispatchProperties;
+    private RegionServiceImpl regionService;
+
+    @BeforeEach
+    void setUp() {
+        dispatchProperties = new DispatchProperties();
+        dispatchProperties.setFanOutMode(FanOutMode.REGION);
+        regionService = new RegionServiceImpl(new RegionProperties(), dispatchProperties, taxiRepository, notificationService,
+                new TaxiSessionRegistry());
+    }
+
+    @Test
+    void getTopic_shouldBeSharedByPointsOfTheSameRegion() {
+        String topic = regionService.getTopic(25.2000, 55.3000);
+
+        assertTrue(topic.startsWith("/topic/regions/"));
+        assertEquals(topic, regionService.getTopic(25.2001, 55.3001));
+        assertNotEquals(topic, regionService.getTopic(25.5, 55.3));
+    }
+
+    @Test
+    void getAssignment_shouldListOwnAndNeighbouringRegions() {
+        Taxi taxi = new Taxi();
+        taxi.setId(TAXI_ID);
+        taxi.setLatitude(25.2);
+        taxi.setLongitude(55.3);
+        when(taxiRepository.findTaxiById(TAXI_ID)).thenReturn(taxi);
+
+        RegionAssignmentDTO assignment = regionService.getAssignment(TAXI_ID);
+
+        assertEquals(TAXI_ID, assignment.getTaxiId());
+        assertEquals(regionService.getTopic(25.2, 55.3), assignment.getRegion());
+        assertEquals(9, assignment.getTopics().size());
+        assertTrue(assignment.getTopics().contains(assignment.getRegion()));
+    }
+
+    @Test
+    void track_shouldNotifyTaxiOnlyWhenItEntersAnotherRegion() {
+        regionService.track(TAXI_ID, 25.2000, 55.3000);
+        regionService.track(TAXI_ID, 25.2001, 55.3001);
+        regionService.track(TAXI_ID, 25.5, 55.3);
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(notificationService, times(2)).notifyTaxi(eq(TAXI_ID), eq("/topic/bookings/34/regions"), captor.capture());
+        RegionAssignmentDTO last = (RegionAssignmentDTO) captor.getAllValues().get(1);
+        assertEquals(regionService.getTopic(25.5, 55.3), last.getRegion());
+    }
+
+    @Test
+    void track_shouldDoNothingInOtherFanOutModes() {
+        dispatchProperties.setFanOutMode(FanOutMode.ALL);
+
+        regionService.track(TAXI_ID, 25.2, 55.3);
+
+        verifyNoInteractions(notificationService);
+    }
+}
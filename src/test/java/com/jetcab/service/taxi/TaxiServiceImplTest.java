@@ -2,14 +2,20 @@ package com.jetcab.service.taxi;
 
 import com.jetcab.common.PageableList;
 import com.jetcab.persistence.TaxiRepository;
-import com.jetcab.service.location.LocationService;
 import com.jetcab.service.location.dto.ModifyLocationDTO;
-import com.jetcab.service.location.model.Location;
+import com.jetcab.service.region.RegionService;
 import com.jetcab.service.taxi.dto.ModifyTaxiDTO;
 import com.jetcab.service.taxi.dto.TaxiDTO;
 import com.jetcab.service.taxi.exception.TaxiNotFoundException;
+import com.jetcab.service.taxi.dto.NearbyTaxiDTO;
+import com.jetcab.service.taxi.index.NearbyTaxi;
+import com.jetcab.service.taxi.index.TaxiIndexProperties;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import com.jetcab.service.taxi.session.TaxiSessionRegistry;
+import com.jetcab.service.taxi.mapper.NearbyTaxiMapper;
 import com.jetcab.service.taxi.mapper.TaxiMapper;
 import com.jetcab.service.taxi.model.Taxi;
+import com.jetcab.service.trail.TrailService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -21,8 +27,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.LongConsumer;
 
 import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
 import static com.jetcab.service.taxi.model.TaxiStatus.BOOKED;
@@ -33,8 +44,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -52,8 +67,21 @@ class TaxiServiceImplTest {
     @Mock
     private TaxiMapper taxiMapper;
 
+
+    @Mock
+    private NearbyTaxiMapper nearbyTaxiMapper;
+
+    @Mock
+    private TaxiSpatialIndex taxiSpatialIndex;
+
+    @Mock
+    private TaxiSessionRegistry taxiSessionRegistry;
+
     @Mock
-    private LocationService locationService;
+    private RegionService regionService;
+
+    @Mock
+    private TrailService trailService;
 
     @InjectMocks
     private TaxiServiceImpl taxiService;
@@ -145,20 +173,23 @@ class TaxiServiceImplTest {
 
     @Test
     void createTaxi() {
-        when(locationService.findOrCreate(any(ModifyLocationDTO.class))).thenReturn(new Location());
-        when(taxiRepository.saveAndFlush(any(Taxi.class))).thenReturn(new Taxi());
+        when(taxiRepository.saveAndFlush(any(Taxi.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(taxiMapper.map(any(Taxi.class))).thenReturn(createTaxiDTO(TAXI_ID, LICENSE_PLATE));
 
         ModifyTaxiDTO modifyTaxiDTO = new ModifyTaxiDTO();
-        modifyTaxiDTO.setLocation(new ModifyLocationDTO());
+        modifyTaxiDTO.setLocation(new ModifyLocationDTO(50.45, 30.52));
         TaxiDTO result = taxiService.createTaxi(modifyTaxiDTO);
 
         assertNotNull(result);
         assertEquals(TAXI_ID, result.getId());
         assertEquals(LICENSE_PLATE, result.getLicensePlate());
 
-        verify(locationService).findOrCreate(any(ModifyLocationDTO.class));
-        verify(taxiRepository).saveAndFlush(any(Taxi.class));
+        verify(taxiRepository).saveAndFlush(taxiCaptor.capture());
+        assertEquals(50.45, taxiCaptor.getValue().getLatitude());
+        assertEquals(30.52, taxiCaptor.getValue().getLongitude());
+        assertNotNull(taxiCaptor.getValue().getLocationUpdatedAt());
+        verify(trailService).append(any(), any(Instant.class), eq(50.45), eq(30.52));
+
         verify(taxiMapper).map(any(Taxi.class));
     }
 
@@ -187,6 +218,7 @@ class TaxiServiceImplTest {
         assertNotNull(result);
         verify(taxiRepository).findTaxiById(anyLong());
         verify(taxiRepository).saveAndFlush(any(Taxi.class));
+        verify(taxiSpatialIndex).update(taxiAvailable);
         verify(taxiMapper).map(taxiCaptor.capture());
 
         Taxi captoredTaxi = taxiCaptor.getValue();
@@ -195,6 +227,47 @@ class TaxiServiceImplTest {
         assertEquals(AVAILABLE, captoredTaxi.getStatus());
     }
 
+    @Test
+    void changeStatus_shouldReturnEmptyWhenTaxiHasAnotherStatus() {
+        when(taxiRepository.updateStatus(TAXI_ID, BOOKED, AVAILABLE)).thenReturn(0);
+
+        assertTrue(taxiService.changeStatus(TAXI_ID, BOOKED, AVAILABLE).isEmpty());
+
+        verify(taxiRepository).updateStatus(TAXI_ID, BOOKED, AVAILABLE);
+        verifyNoMoreInteractions(taxiRepository);
+        verifyNoInteractions(taxiSpatialIndex);
+    }
+
+    @Test
+    void changeStatus_shouldReloadAndIndexUpdatedTaxi() {
+        Taxi taxi = createTaxi(TAXI_ID, LICENSE_PLATE);
+        taxi.setStatus(AVAILABLE);
+        when(taxiRepository.updateStatus(TAXI_ID, BOOKED, AVAILABLE)).thenReturn(1);
+        when(taxiRepository.findTaxiById(TAXI_ID)).thenReturn(taxi);
+
+        assertEquals(Optional.of(taxi), taxiService.changeStatus(TAXI_ID, BOOKED, AVAILABLE));
+
+        verify(taxiSpatialIndex).update(taxi);
+    }
+
+    @Test
+    void updateStatus_shouldIndexTaxiOnlyAfterCommit() {
+        Taxi taxi = createTaxi(TAXI_ID, LICENSE_PLATE);
+        when(taxiRepository.findTaxiById(TAXI_ID)).thenReturn(taxi);
+        when(taxiRepository.saveAndFlush(taxi)).thenReturn(taxi);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            taxiService.updateStatus(TAXI_ID, AVAILABLE);
+            verifyNoInteractions(taxiSpatialIndex);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(taxiSpatialIndex).update(taxi);
+    }
+
     @Test
     void updateTaxi() {
         Taxi taxi = new Taxi();
@@ -215,16 +288,19 @@ class TaxiServiceImplTest {
     void updateLocation_shouldUpdateLocationSuccessfully() {
         Taxi taxi = new Taxi();
         when(taxiRepository.findTaxiById(TAXI_ID)).thenReturn(taxi);
-        when(locationService.findOrCreate(any(ModifyLocationDTO.class))).thenReturn(new Location());
         when(taxiRepository.saveAndFlush(any(Taxi.class))).thenReturn(taxi);
         when(taxiMapper.map(any(Taxi.class))).thenReturn(new TaxiDTO());
 
-        TaxiDTO result = taxiService.updateLocation(TAXI_ID, new ModifyLocationDTO());
+        TaxiDTO result = taxiService.updateLocation(TAXI_ID, new ModifyLocationDTO(50.45, 30.52));
 
         assertNotNull(result);
+        assertEquals(50.45, taxi.getLatitude());
+        assertEquals(30.52, taxi.getLongitude());
+        assertNotNull(taxi.getLocationUpdatedAt());
+        verify(trailService).append(any(), any(Instant.class), eq(50.45), eq(30.52));
         verify(taxiRepository).findTaxiById(anyLong());
-        verify(locationService).findOrCreate(any(ModifyLocationDTO.class));
         verify(taxiRepository).saveAndFlush(any(Taxi.class));
+        verify(taxiSpatialIndex).update(taxi);
         verify(taxiMapper).map(any(Taxi.class));
     }
 
@@ -251,6 +327,7 @@ class TaxiServiceImplTest {
         Taxi deletedTaxi = taxiCaptor.getValue();
         assertNotNull(deletedTaxi);
         assertTrue(deletedTaxi.isDeleted());
+        verify(taxiSpatialIndex).update(deletedTaxi);
     }
 
     @Test
@@ -274,6 +351,98 @@ class TaxiServiceImplTest {
         verify(taxiRepository).findAllByStatus(AVAILABLE);
     }
 
+    @Test
+    void getAvailableTaxiIDsWithin_shouldQuerySpatialIndex() {
+        when(taxiSpatialIndex.findWithin(25.2, 55.3, 5.0)).thenReturn(List.of(TAXI_ID));
+        List<Long> result = taxiService.getAvailableTaxiIDsWithin(25.2, 55.3, 5.0);
+
+        assertEquals(List.of(TAXI_ID), result);
+        verifyNoInteractions(taxiRepository);
+    }
+
+    @Test
+    void getAvailableConnectedTaxiIDs_shouldIterateConnectedTaxisWhenFewer() {
+        when(taxiSessionRegistry.connectedCount()).thenReturn(2);
+        when(taxiSpatialIndex.availableCount()).thenReturn(10);
+        doAnswer(invocation -> {
+            LongConsumer action = invocation.getArgument(0);
+            action.accept(TAXI_ID);
+            action.accept(TAXI_ID_2);
+            return null;
+        }).when(taxiSessionRegistry).forEachConnected(any());
+        when(taxiSpatialIndex.isAvailable(TAXI_ID)).thenReturn(false);
+        when(taxiSpatialIndex.isAvailable(TAXI_ID_2)).thenReturn(true);
+
+        List<Long> result = taxiService.getAvailableConnectedTaxiIDs();
+
+        assertEquals(List.of(TAXI_ID_2), result);
+        verify(taxiSpatialIndex, never()).forEachAvailableId(any());
+        verifyNoInteractions(taxiRepository);
+    }
+
+    @Test
+    void getAvailableConnectedTaxiIDs_shouldIterateAvailableTaxisWhenFewer() {
+        when(taxiSessionRegistry.connectedCount()).thenReturn(10);
+        when(taxiSpatialIndex.availableCount()).thenReturn(2);
+        doAnswer(invocation -> {
+            LongConsumer action = invocation.getArgument(0);
+            action.accept(TAXI_ID);
+            action.accept(TAXI_ID_2);
+            return null;
+        }).when(taxiSpatialIndex).forEachAvailableId(any());
+        when(taxiSessionRegistry.isConnected(TAXI_ID)).thenReturn(true);
+        when(taxiSessionRegistry.isConnected(TAXI_ID_2)).thenReturn(false);
+
+        List<Long> result = taxiService.getAvailableConnectedTaxiIDs();
+
+        assertEquals(List.of(TAXI_ID), result);
+        verify(taxiSessionRegistry, never()).forEachConnected(any());
+    }
+
+    @Test
+    void getAvailableConnectedTaxiIDs_shouldIncludeConnectedTaxiWithoutLocation() {
+        TaxiSpatialIndex index = new TaxiSpatialIndex(new TaxiIndexProperties());
+        TaxiServiceImpl service = new TaxiServiceImpl(taxiRepository, taxiMapper, nearbyTaxiMapper, index, taxiSessionRegistry,
+                trailService, regionService);
+        Taxi taxi = new Taxi();
+        taxi.setId(TAXI_ID);
+        taxi.setStatus(AVAILABLE);
+        when(taxiRepository.findAllByStatusAndDeletedFalse(AVAILABLE)).thenReturn(List.of(taxi));
+        when(taxiSessionRegistry.connectedCount()).thenReturn(1);
+        doAnswer(invocation -> {
+            LongConsumer action = invocation.getArgument(0);
+            action.accept(TAXI_ID);
+            return null;
+        }).when(taxiSessionRegistry).forEachConnected(any());
+
+        service.loadSpatialIndex();
+
+        assertEquals(List.of(TAXI_ID), service.getAvailableConnectedTaxiIDs());
+    }
+
+    @Test
+    void findNearestAvailable_shouldQuerySpatialIndex() {
+        List<NearbyTaxi> nearest = List.of();
+        List<NearbyTaxiDTO> expected = List.of(NearbyTaxiDTO.builder().id(TAXI_ID).build());
+        when(taxiSpatialIndex.findNearest(25.2, 55.3, 3, 10.0)).thenReturn(nearest);
+        when(nearbyTaxiMapper.map(nearest)).thenReturn(expected);
+
+        List<NearbyTaxiDTO> result = taxiService.findNearestAvailable(25.2, 55.3, 3, 10.0);
+
+        assertEquals(expected, result);
+        verifyNoInteractions(taxiRepository);
+    }
+
+    @Test
+    void loadSpatialIndex_shouldIndexAvailableTaxis() {
+        Taxi taxi = createTaxi(TAXI_ID, LICENSE_PLATE);
+        when(taxiRepository.findAllByStatusAndDeletedFalse(AVAILABLE)).thenReturn(List.of(taxi));
+
+        taxiService.loadSpatialIndex();
+
+        verify(taxiSpatialIndex).update(taxi);
+    }
+
     private Taxi createTaxi(Long id, String licensePlate) {
         Taxi taxi = new Taxi();
         taxi.setId(id);
@@ -0,0 +1,169 @@
+package com.jetcab.service.taxi.index;
+
+import com.jetcab.service.taxi.model.Taxi;
+import com.jetcab.service.taxi.model.TaxiStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.jetcab.common.geo.GeoUtils.distanceKm;
+import static com.jetcab.service.taxi.model.TaxiStatus.AVAILABLE;
+import static com.jetcab.service.taxi.model.TaxiStatus.BOOKED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaxiSpatialIndexTest {
+
+    private static final double DUBAI_LAT = 25.276987;
+    private static final double DUBAI_LON = 55.296249;
+
+    private TaxiSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        TaxiIndexProperties properties = new TaxiIndexProperties();
+        properties.setCellSizeKm(1.0);
+        index = new TaxiSpatialIndex(properties);
+    }
+
+    @Test
+    void findWithin_shouldReturnOnlyTaxisInsideRadius() {
+        index.update(createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON));
+        index.update(createTaxi(2L, AVAILABLE, DUBAI_LAT + 0.02, DUBAI_LON));   // ~2.2 km north
+        index.update(createTaxi(3L, AVAILABLE, DUBAI_LAT, DUBAI_LON + 0.1));    // ~10 km east
+        index.update(createTaxi(4L, AVAILABLE, 24.453884, 54.377344));          // Abu Dhabi
+
+        List<Long> actual = index.findWithin(DUBAI_LAT, DUBAI_LON, 5.0);
+
+        assertEquals(2, actual.size());
+        assertTrue(actual.containsAll(List.of(1L, 2L)));
+    }
+
+    @Test
+    void update_shouldRemoveTaxiThatIsNoLongerAvailable() {
+        index.update(createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON));
+        index.update(createTaxi(1L, BOOKED, DUBAI_LAT, DUBAI_LON));
+
+        assertEquals(0, index.size());
+        assertTrue(index.findWithin(DUBAI_LAT, DUBAI_LON, 5.0).isEmpty());
+    }
+
+    @Test
+    void update_shouldRemoveDeletedTaxi() {
+        Taxi taxi = createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON);
+        index.update(taxi);
+        taxi.setDeleted(true);
+        index.update(taxi);
+
+        assertNull(index.get(1L));
+    }
+
+    @Test
+    void update_shouldKeepAvailableTaxiWithoutLocationOutOfGrid() {
+        Taxi taxi = createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON);
+        taxi.setLatitude(null);
+        taxi.setLongitude(null);
+        index.update(taxi);
+        index.update(createTaxi(2L, BOOKED, DUBAI_LAT, DUBAI_LON));
+
+        assertNull(index.get(1L));
+        assertTrue(index.isAvailable(1L));
+        assertFalse(index.isAvailable(2L));
+        assertEquals(1, index.availableCount());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void update_shouldIgnoreSnapshotOlderThanAppliedOne() {
+        Taxi available = createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON);
+        available.setVersion(1L);
+        Taxi booked = createTaxi(1L, BOOKED, DUBAI_LAT, DUBAI_LON);
+        booked.setVersion(2L);
+
+        index.update(booked);
+        index.update(available);
+
+        assertNull(index.get(1L));
+    }
+
+    @Test
+    void update_shouldApplySnapshotOfNewerVersion() {
+        Taxi booked = createTaxi(1L, BOOKED, DUBAI_LAT, DUBAI_LON);
+        booked.setVersion(2L);
+        Taxi available = createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON);
+        available.setVersion(3L);
+
+        index.update(booked);
+        index.update(available);
+
+        assertEquals(1L, index.get(1L).getId());
+    }
+
+    @Test
+    void update_shouldMoveTaxiBetweenCells() {
+        index.update(createTaxi(1L, AVAILABLE, DUBAI_LAT, DUBAI_LON));
+        index.update(createTaxi(1L, AVAILABLE, 24.453884, 54.377344));
+
+        assertTrue(index.findWithin(DUBAI_LAT, DUBAI_LON, 5.0).isEmpty());
+        assertEquals(List.of(1L), index.findWithin(24.453884, 54.377344, 1.0));
+    }
+
+    @Test
+    void findNearest_shouldReturnKClosestTaxisOrderedByDistance() {
+        index.update(createTaxi(1L, AVAILABLE, DUBAI_LAT + 0.03, DUBAI_LON));   // ~3.3 km
+        index.update(createTaxi(2L, AVAILABLE, DUBAI_LAT + 0.001, DUBAI_LON));  // ~0.1 km
+        index.update(createTaxi(3L, AVAILABLE, DUBAI_LAT, DUBAI_LON + 0.05));   // ~5 km
+        index.update(createTaxi(4L, AVAILABLE, DUBAI_LAT - 0.01, DUBAI_LON));   // ~1.1 km
+
+        List<NearbyTaxi> actual = index.findNearest(DUBAI_LAT, DUBAI_LON, 3, 10.0);
+
+        assertEquals(List.of(2L, 4L, 1L), actual.stream().map(nearby -> nearby.getTaxi().getId()).toList());
+        assertTrue(actual.get(0).getDistanceKm() < actual.get(1).getDistanceKm());
+    }
+
+    @Test
+    void findNearest_shouldIgnoreTaxisBeyondMaxDistance() {
+        index.update(createTaxi(1L, AVAILABLE, DUBAI_LAT + 0.001, DUBAI_LON));
+        index.update(createTaxi(2L, AVAILABLE, 24.453884, 54.377344));
+
+        List<NearbyTaxi> actual = index.findNearest(DUBAI_LAT, DUBAI_LON, 5, 20.0);
+
+        assertEquals(1, actual.size());
+        assertEquals(1L, actual.get(0).getTaxi().getId());
+    }
+
+    @Test
+    void findNearest_shouldMatchBruteForceSearch() {
+        Random random = new Random(42);
+        for (long id = 1; id <= 2000; id++) {
+            index.update(createTaxi(id, AVAILABLE, DUBAI_LAT + random.nextGaussian() * 0.1, DUBAI_LON + random.nextGaussian() * 0.1));
+        }
+
+        List<Long> expected = index.findWithin(DUBAI_LAT, DUBAI_LON, 30.0).stream()
+                .map(index::get)
+                .sorted(Comparator.comparingDouble(taxi -> distanceKm(DUBAI_LAT, DUBAI_LON, taxi.getLatitude(), taxi.getLongitude())))
+                .limit(10)
+                .map(IndexedTaxi::getId)
+                .toList();
+
+        List<Long> actual = index.findNearest(DUBAI_LAT, DUBAI_LON, 10, 30.0).stream()
+                .map(nearby -> nearby.getTaxi().getId())
+                .toList();
+
+        assertEquals(expected, actual);
+    }
+
+    private Taxi createTaxi(Long id, TaxiStatus status, double latitude, double longitude) {
+        Taxi taxi = new Taxi();
+        taxi.setId(id);
+        taxi.setStatus(status);
+        taxi.setLatitude(latitude);
+        taxi.setLongitude(longitude);
+        return taxi;
+    }
+}
@@ -0,0 +1,124 @@
+package com.jetcab.service.taxi.ingest;
+
+import com.jetcab.persistence.TaxiPositionJdbcRepository;
+import com.jetcab.service.region.RegionService;
+import com.jetcab.service.taxi.index.TaxiSpatialIndex;
+import com.jetcab.service.trail.TrailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TaxiLocationIngestServiceImplTest {
+
+    @Mock
+    private TaxiPositionJdbcRepository taxiPositionJdbcRepository;
+
+    @Mock
+    private TaxiSpatialIndex taxiSpatialIndex;
+
+    @Mock
+    private TrailService trailService;
+
+    @Mock
+    private RegionService regionService;
+
+    private TaxiLocationIngestServiceImpl ingestService;
+    private List<List<TaxiPosition>> writtenBatches;
+
+    @BeforeEach
+    void setUp() {
+        TaxiLocationIngestProperties properties = new TaxiLocationIngestProperties();
+        properties.setBatchSize(2);
+        ingestService = new TaxiLocationIngestServiceImpl(properties, taxiPositionJdbcRepository, taxiSpatialIndex, trailService, regionService);
+
+        writtenBatches = new ArrayList<>();
+        lenient().doAnswer(invocation -> writtenBatches.add(List.copyOf(invocation.getArgument(0))))
+                .when(taxiPositionJdbcRepository).updatePositions(anyList());
+    }
+
+    @Test
+    void record_shouldMoveTaxiInSpatialIndexImmediately() {
+        ingestService.record(1L, 25.2, 55.3);
+
+        verify(taxiSpatialIndex).move(1L, 25.2, 55.3);
+        verify(trailService).append(eq(1L), any(Instant.class), eq(25.2), eq(55.3));
+        verify(regionService).track(1L, 25.2, 55.3);
+        verifyNoInteractions(taxiPositionJdbcRepository);
+    }
+
+    @Test
+    void flush_shouldWriteOnlyLatestPositionOfEachTaxi() {
+        ingestService.record(1L, 25.0, 55.0);
+        ingestService.record(1L, 25.1, 55.1);
+        ingestService.record(1L, 25.2, 55.2);
+
+        assertEquals(1, ingestService.flush());
+
+        assertEquals(1, writtenBatches.size());
+        TaxiPosition position = writtenBatches.get(0).get(0);
+        assertEquals(1L, position.getTaxiId());
+        assertEquals(25.2, position.getLatitude());
+        assertEquals(55.2, position.getLongitude());
+    }
+
+    @Test
+    void flush_shouldSplitPositionsIntoBatches() {
+        ingestService.record(1L, 25.0, 55.0);
+        ingestService.record(2L, 25.1, 55.1);
+        ingestService.record(3L, 25.2, 55.2);
+
+        assertEquals(3, ingestService.flush());
+
+        assertEquals(2, writtenBatches.size());
+        assertEquals(2, writtenBatches.get(0).size());
+        assertEquals(1, writtenBatches.get(1).size());
+    }
+
+    @Test
+    void flush_shouldNotWriteTwiceTheSamePosition() {
+        ingestService.record(1L, 25.0, 55.0);
+        ingestService.flush();
+
+        assertEquals(0, ingestService.flush());
+        assertEquals(1, writtenBatches.size());
+    }
+
+    @Test
+    void flush_shouldKeepFailedBatchWithoutOverwritingNewerPings() {
+        ingestService.record(1L, 25.0, 55.0);
+        ingestService.record(2L, 25.1, 55.1);
+        ingestService.record(3L, 25.2, 55.2);
+        doAnswer(invocation -> {
+            ingestService.record(1L, 25.9, 55.9);
+            throw new QueryTimeoutException("timeout");
+        }).doAnswer(invocation -> writtenBatches.add(List.copyOf(invocation.getArgument(0))))
+                .when(taxiPositionJdbcRepository).updatePositions(anyList());
+
+        assertEquals(1, ingestService.flush());
+        assertEquals(List.of(3L), writtenBatches.get(0).stream().map(TaxiPosition::getTaxiId).toList());
+
+        assertEquals(2, ingestService.flush());
+        Map<Long, Double> retried = writtenBatches.get(1).stream()
+                .collect(Collectors.toMap(TaxiPosition::getTaxiId, TaxiPosition::getLatitude));
+        assertEquals(Map.of(1L, 25.9, 2L, 25.1), retried);
+    }
+}
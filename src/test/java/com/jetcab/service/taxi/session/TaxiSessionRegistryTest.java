@@ -0,0 +1,86 @@
+package com.jetcab.service.taxi.session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaxiSessionRegistryTest {
+
+    private TaxiSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TaxiSessionRegistry();
+    }
+
+    @Test
+    void subscribe_shouldConnectTaxiOfBookingDestination() {
+        registry.onSubscribe(subscribe("session-1", "sub-0", "/topic/bookings/34"));
+        registry.onSubscribe(subscribe("session-2", "sub-0", "/topic/other"));
+
+        assertTrue(registry.isConnected(34L));
+        assertEquals(1, registry.connectedCount());
+        List<Long> connected = new ArrayList<>();
+        registry.forEachConnected(connected::add);
+        assertEquals(List.of(34L), connected);
+    }
+
+    @Test
+    void unsubscribe_shouldDisconnectTaxi() {
+        registry.onSubscribe(subscribe("session-1", "sub-0", "/topic/bookings/34"));
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, stomp(StompCommand.UNSUBSCRIBE, "session-1", "sub-0", null)));
+
+        assertFalse(registry.isConnected(34L));
+        assertEquals(0, registry.connectedCount());
+    }
+
+    @Test
+    void disconnect_shouldKeepTaxiConnectedWhileAnotherSessionIsOpen() {
+        registry.onSubscribe(subscribe("session-1", "sub-0", "/topic/bookings/34"));
+        registry.onSubscribe(subscribe("session-2", "sub-0", "/topic/bookings/34"));
+        registry.onSubscribe(subscribe("session-2", "sub-1", "/topic/bookings/78"));
+
+        registry.onDisconnect(disconnect("session-1"));
+        assertTrue(registry.isConnected(34L));
+        assertTrue(registry.isConnected(78L));
+
+        registry.onDisconnect(disconnect("session-2"));
+        assertFalse(registry.isConnected(34L));
+        assertFalse(registry.isConnected(78L));
+        assertEquals(0, registry.connectedCount());
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        return new SessionSubscribeEvent(this, stomp(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination));
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        return new SessionDisconnectEvent(this, stomp(StompCommand.DISCONNECT, sessionId, null, null), sessionId, CloseStatus.NORMAL);
+    }
+
+    private Message<byte[]> stomp(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+        }
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
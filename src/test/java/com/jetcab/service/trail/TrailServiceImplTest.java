@@ -0,0 +1,92 @@
+package com.jetcab.service.trail;
+
+import com.jetcab.persistence.TaxiRepository;
+import com.jetcab.service.taxi.exception.TaxiNotFoundException;
+import com.jetcab.service.trail.codec.Trajectory;
+import com.jetcab.service.trail.codec.TrajectoryCodec;
+import com.jetcab.service.trail.dto.TrailPointDTO;
+import com.jetcab.service.trail.store.TrailStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrailServiceImplTest {
+    private static final Long TAXI_ID = 1L;
+    private static final ZonedDateTime FROM = ZonedDateTime.of(2024, 8, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime TO = FROM.plusDays(1);
+
+    @Mock
+    private TrailStore trailStore;
+
+    @Mock
+    private TaxiRepository taxiRepository;
+
+    private TrailServiceImpl trailService;
+
+    @BeforeEach
+    void setUp() {
+        trailService = new TrailServiceImpl(new TrailProperties(), trailStore, taxiRepository);
+    }
+
+    @Test
+    void append_shouldWriteToStore() {
+        Instant recordedAt = FROM.toInstant();
+        trailService.append(TAXI_ID, recordedAt, 25.2, 55.3);
+        verify(trailStore).append(TAXI_ID, recordedAt.toEpochMilli(), 25.2, 55.3);
+    }
+
+    @Test
+    void getTrail_shouldMapStoredPoints() {
+        long timestamp = FROM.toInstant().toEpochMilli() + 1000;
+        stubStoredPoints(timestamp);
+
+        List<TrailPointDTO> trail = trailService.getTrail(TAXI_ID, FROM, TO);
+
+        assertEquals(List.of(new TrailPointDTO(Instant.ofEpochMilli(timestamp), 25.2, 55.3)), trail);
+        verify(taxiRepository).findTaxiById(TAXI_ID);
+    }
+
+    @Test
+    void getTrail_shouldThrowTaxiNotFoundException() {
+        when(taxiRepository.findTaxiById(TAXI_ID)).thenThrow(new TaxiNotFoundException());
+        assertThrows(TaxiNotFoundException.class, () -> trailService.getTrail(TAXI_ID, FROM, TO));
+        verifyNoInteractions(trailStore);
+    }
+
+    @Test
+    void getEncodedTrail_shouldEncodeStoredPoints() {
+        long timestamp = FROM.toInstant().toEpochMilli() + 1000;
+        stubStoredPoints(timestamp);
+
+        Trajectory decoded = TrajectoryCodec.decode(trailService.getEncodedTrail(TAXI_ID, FROM, TO, null));
+
+        assertEquals(1, decoded.size());
+        assertEquals(timestamp, decoded.timestamp(0));
+        assertEquals(25.2, decoded.latitude(0), 1e-6);
+    }
+
+    private void stubStoredPoints(long timestamp) {
+        doAnswer(invocation -> {
+            invocation.<TrailStore.PointConsumer>getArgument(3).accept(timestamp, 25.2, 55.3);
+            return null;
+        }).when(trailStore).read(eq(TAXI_ID), anyLong(), anyLong(), any());
+    }
+}
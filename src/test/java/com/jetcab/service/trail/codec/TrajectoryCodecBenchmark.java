@@ -0,0 +1,88 @@
+package com.jetcab.service.trail.codec;
+
+import com.jetcab.service.trail.store.TrailStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Size and throughput of the trajectory encoding compared to storing each point as a row.
+ * Run with {@code gradle benchmark}; excluded from the regular test task.
+ */
+@Tag("benchmark")
+class TrajectoryCodecBenchmark {
+
+    private static final int POINTS = 1_000_000;
+    private static final int ROUNDS = 10;
+
+    /**
+     * A {@code locations} row: BIGINT id plus two DOUBLE columns, without any row or index overhead.
+     */
+    private static final int LOCATION_ROW_BYTES = 8 + 8 + 8;
+
+    @Test
+    void encodeAndDecode() {
+        Trajectory trajectory = simulatedDrive();
+
+        report("raw", trajectory, 0);
+        report("simplified 5 m", trajectory, 5);
+        report("simplified 20 m", trajectory, 20);
+    }
+
+    private void report(String name, Trajectory trajectory, double toleranceMeters) {
+        Trajectory simplified = TrajectorySimplifier.simplify(trajectory, toleranceMeters);
+        byte[] encoded = TrajectoryCodec.encode(simplified);
+
+        long encodeNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            checksum += TrajectoryCodec.encode(simplified).length;
+            encodeNanos = Math.min(encodeNanos, System.nanoTime() - start);
+
+            Checksum consumer = new Checksum();
+            start = System.nanoTime();
+            TrajectoryCodec.decode(encoded, consumer);
+            decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+            checksum += consumer.value;
+        }
+
+        System.out.printf("%-16s points=%,d kept=%,d bytes/point=%.2f (trail record %d, location row %d) "
+                        + "encode=%.1f Mpoints/s decode=%.1f Mpoints/s [%d]%n",
+                name, trajectory.size(), simplified.size(), (double) encoded.length / trajectory.size(),
+                TrailStore.RECORD_SIZE, LOCATION_ROW_BYTES,
+                simplified.size() * 1e3 / encodeNanos, simplified.size() * 1e3 / decodeNanos, checksum);
+    }
+
+    /**
+     * A random walk at city speed with a ping every ~2 seconds and some jitter.
+     */
+    private static Trajectory simulatedDrive() {
+        Random random = new Random(42);
+        Trajectory trajectory = new Trajectory(POINTS);
+        long timestamp = 1_722_500_000_000L;
+        double latitude = 50.45;
+        double longitude = 30.52;
+        double heading = 0;
+        for (int i = 0; i < POINTS; i++) {
+            timestamp += 2000 + random.nextInt(200) - 100;
+            heading += random.nextGaussian() * 0.2;
+            latitude += Math.cos(heading) * 0.0001;
+            longitude += Math.sin(heading) * 0.00015;
+            trajectory.accept(timestamp, latitude, longitude);
+        }
+        return trajectory;
+    }
+
+    private static final class Checksum implements TrailStore.PointConsumer {
+
+        private long value;
+
+        @Override
+        public void accept(long timestamp, double latitude, double longitude) {
+            value += timestamp;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.jetcab.service.trail.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrajectoryCodecTest {
+
+    @Test
+    void decode_shouldRestoreEncodedPoints() {
+        Trajectory trajectory = new Trajectory();
+        trajectory.accept(1_722_500_000_000L, 50.450123, 30.523456);
+        trajectory.accept(1_722_500_002_000L, 50.450223, 30.523356);
+        trajectory.accept(1_722_500_003_500L, 50.449900, 30.523900);
+        trajectory.accept(1_722_500_003_400L, -33.8688, 151.2093);
+
+        Trajectory decoded = TrajectoryCodec.decode(TrajectoryCodec.encode(trajectory));
+
+        assertEquals(trajectory.size(), decoded.size());
+        for (int i = 0; i < trajectory.size(); i++) {
+            assertEquals(trajectory.timestamp(i), decoded.timestamp(i));
+            assertEquals(trajectory.latitude(i), decoded.latitude(i), 1e-6);
+            assertEquals(trajectory.longitude(i), decoded.longitude(i), 1e-6);
+        }
+    }
+
+    @Test
+    void encode_shouldUseFewBytesForSteadyPings() {
+        Trajectory trajectory = new Trajectory();
+        for (int i = 0; i < 1000; i++) {
+            trajectory.accept(1_722_500_000_000L + i * 2000L, 50.45 + i * 0.00005, 30.52 + i * 0.00003);
+        }
+
+        byte[] encoded = TrajectoryCodec.encode(trajectory);
+
+        assertTrue(encoded.length < trajectory.size() * 4, "encoded " + encoded.length + " bytes");
+    }
+
+    @Test
+    void encode_shouldReturnEmptyDataForEmptyTrajectory() {
+        assertEquals(0, TrajectoryCodec.encode(new Trajectory()).length);
+        assertEquals(0, TrajectoryCodec.decode(new byte[0]).size());
+    }
+
+    @Test
+    void decode_shouldRejectTruncatedData() {
+        Trajectory trajectory = new Trajectory();
+        trajectory.accept(1_722_500_000_000L, 50.45, 30.52);
+        byte[] encoded = TrajectoryCodec.encode(trajectory);
+
+        assertThrows(IllegalArgumentException.class, () -> TrajectoryCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jetcab.service.trail.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TrajectorySimplifierTest {
+
+    @Test
+    void simplify_shouldCollapseStraightLineToEndpoints() {
+        Trajectory trajectory = new Trajectory();
+        for (int i = 0; i <= 10; i++) {
+            trajectory.accept(i * 1000L, 50.45 + i * 0.0001, 30.52);
+        }
+
+        Trajectory simplified = TrajectorySimplifier.simplify(trajectory, 1.0);
+
+        assertEquals(2, simplified.size());
+        assertEquals(0L, simplified.timestamp(0));
+        assertEquals(10_000L, simplified.timestamp(1));
+    }
+
+    @Test
+    void simplify_shouldKeepCornerBeyondTolerance() {
+        Trajectory trajectory = new Trajectory();
+        trajectory.accept(0, 50.450, 30.520);
+        trajectory.accept(1000, 50.451, 30.520);
+        trajectory.accept(2000, 50.452, 30.520);
+        trajectory.accept(3000, 50.452, 30.521);
+        trajectory.accept(4000, 50.452, 30.522);
+
+        Trajectory simplified = TrajectorySimplifier.simplify(trajectory, 5.0);
+
+        assertEquals(3, simplified.size());
+        assertEquals(2000L, simplified.timestamp(1));
+    }
+
+    @Test
+    void simplify_shouldKeepEverythingWithZeroTolerance() {
+        Trajectory trajectory = new Trajectory();
+        trajectory.accept(0, 50.450, 30.520);
+        trajectory.accept(1000, 50.4505, 30.5201);
+        trajectory.accept(2000, 50.451, 30.520);
+
+        assertSame(trajectory, TrajectorySimplifier.simplify(trajectory, 0));
+    }
+}
@@ -0,0 +1,180 @@
+package com.jetcab.service.trail.store;
+
+import com.jetcab.service.trail.TrailProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrailStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private TrailProperties properties;
+    private TrailStore trailStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new TrailProperties();
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofBytes(TrailStore.RECORD_SIZE * 4));
+        trailStore = new TrailStore(properties);
+        trailStore.open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        trailStore.close();
+    }
+
+    @Test
+    void read_shouldReturnPointsOfTaxiWithinTimeRange() {
+        trailStore.append(1L, 1000, 25.0, 55.0);
+        trailStore.append(2L, 1500, 26.0, 56.0);
+        trailStore.append(1L, 2000, 25.1, 55.1);
+        trailStore.append(1L, 3000, 25.2, 55.2);
+
+        List<double[]> points = read(1L, 1000, 3000);
+
+        assertEquals(2, points.size());
+        assertEquals(List.of(1000d, 25.0, 55.0), List.of(points.get(0)[0], points.get(0)[1], points.get(0)[2]));
+        assertEquals(List.of(2000d, 25.1, 55.1), List.of(points.get(1)[0], points.get(1)[1], points.get(1)[2]));
+    }
+
+    @Test
+    void read_shouldOrderOutOfOrderPointsByTime() {
+        trailStore.append(1L, 3000, 25.2, 55.2);
+        trailStore.append(1L, 1000, 25.0, 55.0);
+        trailStore.append(1L, 2000, 25.1, 55.1);
+
+        List<Double> timestamps = read(1L, 0, Long.MAX_VALUE).stream().map(point -> point[0]).toList();
+
+        assertEquals(List.of(1000d, 2000d, 3000d), timestamps);
+    }
+
+    @Test
+    void append_shouldSealActiveSegmentWhenFull() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            trailStore.append(1L, i, 25.0 + i, 55.0);
+        }
+
+        assertEquals(3, trailStore.sealedCount());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(4, files.count());
+        }
+        assertEquals(10, trailStore.count(1L));
+        List<double[]> points = read(1L, 0, 10);
+        assertEquals(10, points.size());
+        assertEquals(34.0, points.get(9)[1]);
+    }
+
+    @Test
+    void read_shouldOrderPointDelayedPastSealByTime() {
+        trailStore.append(1L, 1000, 25.0, 55.0);
+        trailStore.append(1L, 3000, 25.2, 55.2);
+        trailStore.append(2L, 3000, 26.0, 56.0);
+        trailStore.append(1L, 2000, 25.1, 55.1);
+
+        List<Double> timestamps = read(1L, 0, Long.MAX_VALUE).stream().map(point -> point[0]).toList();
+
+        assertEquals(1, trailStore.sealedCount());
+        assertEquals(List.of(1000d, 2000d, 3000d), timestamps);
+        assertEquals(List.of(3000d), read(1L, 2500, 4000).stream().map(point -> point[0]).toList());
+    }
+
+    @Test
+    void rollOver_shouldSealActiveSegmentOlderThanInterval() {
+        trailStore.rollOver();
+        assertEquals(0, trailStore.sealedCount());
+
+        trailStore.append(1L, 1000, 25.0, 55.0);
+        properties.setRolloverInterval(Duration.ZERO);
+        trailStore.rollOver();
+
+        assertEquals(1, trailStore.sealedCount());
+        assertEquals(1, read(1L, 0, 2000).size());
+    }
+
+    @Test
+    void evictExpired_shouldDeleteSegmentsOlderThanRetention() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            trailStore.append(1L, 1000 + i, 25.0, 55.0);
+        }
+        for (int i = 0; i < 4; i++) {
+            trailStore.append(1L, 5000 + i, 25.0, 55.0);
+        }
+        properties.setRetention(Duration.ofMillis(1000));
+
+        assertEquals(1, trailStore.evictExpired(5000));
+
+        assertEquals(1, trailStore.sealedCount());
+        assertEquals(List.of(5000d, 5001d, 5002d, 5003d), read(1L, 0, 10_000).stream().map(point -> point[0]).toList());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void append_shouldStoreSealedPointsDeltaEncoded() throws IOException {
+        properties.setSegmentSize(DataSize.ofBytes(TrailStore.RECORD_SIZE * 1001L));
+        trailStore.close();
+        trailStore = new TrailStore(properties);
+        trailStore.open();
+        for (int i = 0; i < 1001; i++) {
+            trailStore.append(1L, 1_000_000L + i * 1000L, 25.2 + i * 0.00001, 55.3 + i * 0.00001);
+        }
+
+        assertEquals(1, trailStore.sealedCount());
+        assertTrue(Files.size(directory.resolve("trail-00000000.sealed")) < 1000 * 8);
+        List<double[]> points = read(1L, 0, Long.MAX_VALUE);
+        assertEquals(1001, points.size());
+        assertEquals(25.2 + 999 * 0.00001, points.get(999)[1], 1e-6);
+        assertEquals(1_999_000d, points.get(999)[0]);
+    }
+
+    @Test
+    void open_shouldRequireDirectory() {
+        properties.setDirectory(null);
+
+        assertThrows(IllegalStateException.class, () -> new TrailStore(properties).open());
+    }
+
+    @Test
+    void open_shouldRebuildIndexFromSegmentFiles() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            trailStore.append(i % 2 + 1L, i, 25.0 + i, 55.0);
+        }
+        trailStore.close();
+
+        trailStore = new TrailStore(properties);
+        trailStore.open();
+        trailStore.append(1L, 6, 31.0, 55.0);
+
+        assertEquals(2, trailStore.sealedCount());
+        assertEquals(4, trailStore.count(1L));
+        assertEquals(3, trailStore.count(2L));
+        List<double[]> points = read(1L, 0, 10);
+        assertEquals(31.0, points.get(points.size() - 1)[1]);
+        assertTrue(read(3L, 0, 10).isEmpty());
+    }
+
+    private List<double[]> read(long taxiId, long from, long to) {
+        List<double[]> points = new ArrayList<>();
+        trailStore.read(taxiId, from, to, (timestamp, latitude, longitude) -> points.add(new double[]{timestamp, latitude, longitude}));
+        return points;
+    }
+}